@@ -0,0 +1,179 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * BankBenchmarks measures the hot paths of the banking system against one generated data folder.
+ *
+ * It runs inside a fresh JVM started by BenchmarkRunner (with -Dbank.data.dir pointing at the
+ * dataset), because the account store, transaction index and ID allocator load their data once
+ * per JVM. Each benchmark runs a few warmup iterations, then measurement iterations, and reports:
+ * - throughput in operations per second
+ * - latency percentiles (p50, p90, p99, p99.9 and max) in microseconds
+ *
+ * Settings (system properties):
+ *   bench.size              number of accounts/transactions in the dataset (set by BenchmarkRunner)
+ *   bench.filter            only run benchmarks whose name contains this text
+ *   bench.warmupIterations  default 3
+ *   bench.iterations        default 5
+ *   bench.iterationMillis   default 1000
+ */
+public class BankBenchmarks {
+    // At most this many latency samples are kept per benchmark (reservoir sampling beyond that)
+    private static final int MAX_SAMPLES = 1 << 20;
+
+    private interface Operation {
+        void run();
+    }
+
+    private static class Benchmark {
+        final String name;
+        final Operation operation;
+
+        Benchmark(String name, Operation operation) {
+            this.name = name;
+            this.operation = operation;
+        }
+    }
+
+    public static void main(String[] args) {
+        int size = Integer.getInteger("bench.size", 1000);
+        String filter = System.getProperty("bench.filter", "");
+        int warmupIterations = Integer.getInteger("bench.warmupIterations", 3);
+        int iterations = Integer.getInteger("bench.iterations", 5);
+        long iterationNanos = Long.getLong("bench.iterationMillis", 1000L) * 1_000_000L;
+
+        // The banking classes log every operation at INFO and some still print; keep that out of the numbers
+        Log.setLevel(Log.Level.WARN);
+        PrintStream report = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        // Load everything once, so the first benchmark does not pay for the startup scans
+        List<BankAccount> accounts = BankAccount.getAllAccounts();
+        TransactionHistory.getAllTransactions();
+        int users = Math.max(1, size / 2);
+        Random random = new Random(42);
+
+        List<Benchmark> benchmarks = new ArrayList<>();
+        benchmarks.add(new Benchmark("BankAccount.deposit", () ->
+                pick(accounts, random).deposit(1.25)));
+        benchmarks.add(new Benchmark("BankAccount.withdraw", () ->
+                pick(accounts, random).withdraw(1.25)));
+        benchmarks.add(new Benchmark("BankAccount.transfer", () ->
+                pick(accounts, random).transfer(pick(accounts, random), 1.25)));
+        benchmarks.add(new Benchmark("BankTransfer.transfer", () ->
+                BankTransfer.transfer(pick(accounts, random), pick(accounts, random), 1.25)));
+        benchmarks.add(new Benchmark("BatchTransfer.execute (100 transfers)", () -> {
+            BankAccount from = pick(accounts, random);
+            List<BatchTransfer.Item> items = new ArrayList<>(100);
+            for (int i = 0; i < 100; i++) {
+                BankAccount to = pick(accounts, random);
+                if (to != from) {
+                    items.add(new BatchTransfer.Item(from.getAccountID(), to.getAccountID(), 0.01));
+                }
+            }
+            BatchTransfer.execute(items, BatchTransfer.Mode.BEST_EFFORT);
+        }));
+        benchmarks.add(new Benchmark("BankAccountCSV.readUserAccounts", () ->
+                BankAccountCSV.readUserAccounts(BenchmarkData.FIRST_USER_ID + random.nextInt(users))));
+        benchmarks.add(new Benchmark("BankAccountCSV.writeToCSV", () ->
+                BankAccountCSV.writeToCSV(pick(accounts, random))));
+        benchmarks.add(new Benchmark("TransactionLogger.log", () ->
+                TransactionLogger.log(new Transaction(pick(accounts, random).getAccountID(), "SYSTEM",
+                        1.25, "WITHDRAWAL", "Benchmark"))));
+        benchmarks.add(new Benchmark("TransactionHistory.getUserTransactions", () ->
+                TransactionHistory.getUserTransactions(BenchmarkData.FIRST_USER_ID + random.nextInt(users))));
+
+        report.printf("%n=== Dataset: %,d accounts / %,d transactions ===%n", size, size);
+        report.printf("%-40s %14s %10s %10s %10s %10s %10s%n",
+                "Benchmark", "ops/s", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us");
+        for (Benchmark benchmark : benchmarks) {
+            if (!benchmark.name.contains(filter)) {
+                continue;
+            }
+            for (int i = 0; i < warmupIterations; i++) {
+                measure(benchmark.operation, iterationNanos, null, random);
+            }
+            Samples samples = new Samples();
+            long operations = 0;
+            long elapsed = 0;
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                operations += measure(benchmark.operation, iterationNanos, samples, random);
+                elapsed += System.nanoTime() - start;
+            }
+            long[] sorted = samples.sorted();
+            report.printf("%-40s %,14.0f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    benchmark.name,
+                    operations / (elapsed / 1e9),
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1000.0);
+        }
+        report.flush();
+    }
+
+    /**
+     * Latency samples for one benchmark
+     * Once the array is full, new samples replace old ones at random (reservoir sampling),
+     * so long runs still give a fair picture of the whole measurement
+     */
+    private static class Samples {
+        final long[] values = new long[MAX_SAMPLES];
+        long seen;
+
+        void add(long latency, Random random) {
+            if (seen < MAX_SAMPLES) {
+                values[(int) seen] = latency;
+            } else {
+                long slot = (long) (random.nextDouble() * (seen + 1));
+                if (slot < MAX_SAMPLES) {
+                    values[(int) slot] = latency;
+                }
+            }
+            seen++;
+        }
+
+        long[] sorted() {
+            long[] sorted = Arrays.copyOf(values, (int) Math.min(seen, MAX_SAMPLES));
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    /**
+     * Runs one iteration: calls the operation until the time is up
+     * @param samples Where to keep latency samples, or null during warmup
+     * @return The number of operations run
+     */
+    private static long measure(Operation operation, long iterationNanos, Samples samples, Random random) {
+        long end = System.nanoTime() + iterationNanos;
+        long count = 0;
+        while (true) {
+            long start = System.nanoTime();
+            if (start >= end) {
+                return count;
+            }
+            operation.run();
+            long latency = System.nanoTime() - start;
+            count++;
+            if (samples != null) {
+                samples.add(latency, random);
+            }
+        }
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1000.0;
+    }
+
+    private static BankAccount pick(List<BankAccount> accounts, Random random) {
+        return accounts.get(random.nextInt(accounts.size()));
+    }
+}
@@ -0,0 +1,73 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * BenchmarkData writes a synthetic data folder for the benchmarks.
+ *
+ * For a dataset of size N it creates:
+ * - N / 2 users (user IDs 1000 and up), each with one checking and one savings account, so N accounts
+ * - N transfers between random accounts in transactions.csv
+ * Every account starts with $1,000,000.00 so withdrawals and transfers never run out of money.
+ * The same size and seed always produce the same files.
+ */
+public class BenchmarkData {
+    static final int FIRST_USER_ID = 1000;
+    static final String STARTING_BALANCE = "1000000.00";
+
+    /**
+     * Generates a data folder
+     * @param dir The folder to write users.csv, bank_accounts.csv and transactions.csv into
+     * @param size The number of accounts and transactions
+     * @param seed Seed for the random transaction amounts and accounts
+     * @throws IOException If a file cannot be written
+     */
+    public static void generate(Path dir, int size, long seed) throws IOException {
+        Files.createDirectories(dir);
+        int users = Math.max(1, size / 2);
+
+        try (BufferedWriter out = Files.newBufferedWriter(dir.resolve("users.csv"))) {
+            out.write("username,password,role,userID");
+            out.newLine();
+            for (int u = 0; u < users; u++) {
+                out.write("user" + u + ",pw" + u + ",STANDARD USER," + (FIRST_USER_ID + u));
+                out.newLine();
+            }
+        }
+
+        try (BufferedWriter out = Files.newBufferedWriter(dir.resolve("bank_accounts.csv"))) {
+            for (int u = 0; u < users; u++) {
+                int userID = FIRST_USER_ID + u;
+                out.write(checkingID(u) + "," + userID + "," + STARTING_BALANCE + ",CHECKING");
+                out.newLine();
+                out.write(savingsID(u) + "," + userID + "," + STARTING_BALANCE + ",SAVING");
+                out.newLine();
+            }
+        }
+
+        Random random = new Random(seed);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        try (BufferedWriter out = Files.newBufferedWriter(dir.resolve("transactions.csv"))) {
+            out.write("TransactionID,Timestamp,FromAccount,ToAccount,Amount,Type,Note");
+            out.newLine();
+            for (int i = 0; i < size; i++) {
+                int from = random.nextInt(users);
+                int to = random.nextInt(users);
+                out.write((i + 1) + "," + start.plusSeconds(i) + "," + checkingID(from) + "," + savingsID(to) + ","
+                        + (1 + random.nextInt(500)) + "." + (10 + random.nextInt(90)) + ",TRANSFER,Transfer between accounts");
+                out.newLine();
+            }
+        }
+    }
+
+    static String checkingID(int user) {
+        return "user" + user + "-C-" + (FIRST_USER_ID + user);
+    }
+
+    static String savingsID(int user) {
+        return "user" + user + "-S-" + (FIRST_USER_ID + user);
+    }
+}
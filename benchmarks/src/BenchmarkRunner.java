@@ -0,0 +1,80 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * BenchmarkRunner runs BankBenchmarks against datasets of several sizes.
+ *
+ * For each size it generates a fresh data folder (see BenchmarkData) in a temporary directory and
+ * starts a new JVM with -Dbank.data.dir pointing at it. A new JVM per size is needed because the
+ * banking classes load the data folder once and keep it for the rest of the run.
+ *
+ * Usage: java BenchmarkRunner [sizes] [filter]
+ *   sizes   comma separated dataset sizes, default 1000,100000,1000000
+ *   filter  only run benchmarks whose name contains this text
+ * Any -Dbench.* settings given to the runner are passed on to each benchmark JVM.
+ */
+public class BenchmarkRunner {
+    private static final String DEFAULT_SIZES = "1000,100000,1000000";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String sizes = args.length > 0 ? args[0] : DEFAULT_SIZES;
+        String filter = args.length > 1 ? args[1] : "";
+
+        for (String text : sizes.split(",")) {
+            int size;
+            try {
+                size = Integer.parseInt(text.trim());
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid dataset size: " + text);
+                continue;
+            }
+
+            Path dir = Files.createTempDirectory("bank-bench-" + size + "-");
+            try {
+                System.out.println("Generating dataset of " + size + " in " + dir);
+                BenchmarkData.generate(dir, size, 42L);
+                int exit = runFork(dir, size, filter);
+                if (exit != 0) {
+                    System.err.println("Benchmark run for size " + size + " failed with exit code " + exit);
+                }
+            } finally {
+                deleteTree(dir);
+            }
+        }
+    }
+
+    /**
+     * Starts BankBenchmarks in a new JVM against one data folder and waits for it to finish
+     * @return The exit code of the benchmark JVM
+     */
+    private static int runFork(Path dir, int size, String filter) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-Dbank.data.dir=" + dir.toAbsolutePath());
+        command.add("-Dbench.size=" + size);
+        command.add("-Dbench.filter=" + filter);
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("bench.") && !name.equals("bench.size") && !name.equals("bench.filter")) {
+                command.add("-D" + name + "=" + System.getProperty(name));
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("BankBenchmarks");
+
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        return process.waitFor();
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,279 @@
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * AccountAggregates keeps running totals for each account, so questions like
+ * "how much has this account sent today?" are answered without reading the log.
+ *
+ * For every account it tracks:
+ * - the total of today's outgoing transfers
+ * - today's number of deposits and withdrawals
+ * - the interest credited so far this month
+ *
+ * TransactionLogger records every transaction here as it is logged. The first time the
+ * totals are used they are rebuilt from this month's transactions (with the segmented log
+ * only this month's segments are read). Totals from an earlier day or month are reset
+ * the first time the account is touched or read on a new day.
+ */
+public class AccountAggregates {
+    // Running totals keyed by account ID
+    private static final Map<String, Totals> totals = new ConcurrentHashMap<>();
+
+    private static volatile boolean loaded = false;
+    // Set by TransactionLogger when a logged batch could not be written; the next use rebuilds the totals
+    private static volatile boolean stale = false;
+
+    /**
+     * The totals of one account
+     * Dates are stored as epoch days and months (year * 12 + month) to keep the object small
+     */
+    private static class Totals {
+        long day = Long.MIN_VALUE;
+        long transferredOutCents;
+        int deposits;
+        int withdrawals;
+        long month = Long.MIN_VALUE;
+        long interestCents;
+
+        /**
+         * Starts a new day or month if the transaction is newer than the current totals
+         * @return false if the transaction is from before the current day (too old to count)
+         */
+        boolean advanceTo(long transactionDay) {
+            if (transactionDay > day) {
+                day = transactionDay;
+                transferredOutCents = 0;
+                deposits = 0;
+                withdrawals = 0;
+            }
+            long transactionMonth = monthOf(transactionDay);
+            if (transactionMonth > month) {
+                month = transactionMonth;
+                interestCents = 0;
+            }
+            return transactionDay == day;
+        }
+    }
+
+    /**
+     * Rebuilds the totals from this month's transactions the first time they are used
+     */
+    private static void ensureLoaded() {
+        if (loaded && !stale) {
+            return;
+        }
+        synchronized (AccountAggregates.class) {
+            if (loaded && !stale) {
+                return;
+            }
+            if (stale) {
+                // Cleared before reading, so a failure reported during the read forces another rebuild
+                stale = false;
+                totals.clear();
+            }
+            LocalDateTime monthStart = LocalDate.now().withDayOfMonth(1).atStartOfDay();
+            try (Stream<Transaction> thisMonth = TransactionHistory.streamLog(new StatementFilter().between(monthStart, null))) {
+                thisMonth.forEach(AccountAggregates::apply);
+            } catch (RuntimeException e) {
+                // Start over on the next try rather than keep totals from half the month
+                totals.clear();
+                throw e;
+            }
+            loaded = true;
+        }
+    }
+
+    /**
+     * Throws away the totals, so they are rebuilt from the file the next time they are used
+     * Called by TransactionLogger when transactions already recorded here could not be written
+     */
+    public static void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Adds a transaction to the totals
+     * Called by TransactionLogger before the transaction is queued for writing, so the
+     * rebuild on first use can never count it twice
+     * @param transaction The transaction being logged
+     */
+    public static void record(Transaction transaction) {
+        ensureLoaded();
+        apply(transaction);
+    }
+
+    /**
+     * Adds a batch of transactions to the totals
+     * @param transactions The transactions being logged
+     */
+    public static void recordAll(List<Transaction> transactions) {
+        ensureLoaded();
+        for (Transaction transaction : transactions) {
+            apply(transaction);
+        }
+    }
+
+    /**
+     * Gets the total of an account's transfers made today
+     * @param accountID The account ID
+     * @return The amount in cents
+     */
+    public static long getTransferredOutTodayCents(String accountID) {
+        Totals account = today(accountID);
+        if (account == null) {
+            return 0;
+        }
+        synchronized (account) {
+            return account.transferredOutCents;
+        }
+    }
+
+    /**
+     * Gets the number of deposits into an account today
+     * @param accountID The account ID
+     * @return The number of deposits
+     */
+    public static int getDepositsToday(String accountID) {
+        Totals account = today(accountID);
+        if (account == null) {
+            return 0;
+        }
+        synchronized (account) {
+            return account.deposits;
+        }
+    }
+
+    /**
+     * Gets the number of withdrawals from an account today
+     * @param accountID The account ID
+     * @return The number of withdrawals
+     */
+    public static int getWithdrawalsToday(String accountID) {
+        Totals account = today(accountID);
+        if (account == null) {
+            return 0;
+        }
+        synchronized (account) {
+            return account.withdrawals;
+        }
+    }
+
+    /**
+     * Gets the interest credited to an account so far this month
+     * @param accountID The account ID
+     * @return The amount in cents
+     */
+    public static long getInterestThisMonthCents(String accountID) {
+        Totals account = today(accountID);
+        if (account == null) {
+            return 0;
+        }
+        synchronized (account) {
+            return account.interestCents;
+        }
+    }
+
+    /**
+     * Looks up an account's totals, resetting them first if they are from an earlier day
+     */
+    private static Totals today(String accountID) {
+        ensureLoaded();
+        Totals account = totals.get(accountID);
+        if (account != null) {
+            synchronized (account) {
+                account.advanceTo(LocalDate.now().toEpochDay());
+            }
+        }
+        return account;
+    }
+
+    private static void apply(Transaction transaction) {
+        long day = epochDay(transaction.getTimestamp());
+        if (day == Long.MIN_VALUE) {
+            return;
+        }
+        String type = transaction.getType().toUpperCase();
+        if (type.equals("TRANSFER")) {
+            Totals account = totals.computeIfAbsent(transaction.getFromAccount(), id -> new Totals());
+            synchronized (account) {
+                if (account.advanceTo(day)) {
+                    account.transferredOutCents += transaction.getAmountCents();
+                }
+            }
+        } else if (type.contains("DEPOSIT")) {
+            Totals account = totals.computeIfAbsent(creditedAccount(transaction), id -> new Totals());
+            synchronized (account) {
+                if (account.advanceTo(day)) {
+                    account.deposits++;
+                }
+            }
+        } else if (type.contains("WITHDRAW")) {
+            Totals account = totals.computeIfAbsent(transaction.getFromAccount(), id -> new Totals());
+            synchronized (account) {
+                if (account.advanceTo(day)) {
+                    account.withdrawals++;
+                }
+            }
+        } else if (type.equals("INTEREST")) {
+            Totals account = totals.computeIfAbsent(transaction.getToAccount(), id -> new Totals());
+            synchronized (account) {
+                account.advanceTo(day);
+                if (monthOf(day) == account.month) {
+                    account.interestCents += transaction.getAmountCents();
+                }
+            }
+        }
+    }
+
+    /**
+     * The account a deposit went into
+     * Deposits are logged as SYSTEM -> account, but the older console menu logs them as account -> "-"
+     */
+    private static String creditedAccount(Transaction transaction) {
+        String to = transaction.getToAccount();
+        return to == null || to.equals("-") ? transaction.getFromAccount() : to;
+    }
+
+    /**
+     * Reads the date at the start of an ISO timestamp (yyyy-MM-ddTHH:mm...) without a full parse
+     * @return The epoch day, or Long.MIN_VALUE if the timestamp does not start with a date
+     */
+    private static long epochDay(String timestamp) {
+        if (timestamp == null || timestamp.length() < 10 || timestamp.charAt(4) != '-' || timestamp.charAt(7) != '-') {
+            return Long.MIN_VALUE;
+        }
+        int year = digits(timestamp, 0, 4);
+        int month = digits(timestamp, 5, 7);
+        int day = digits(timestamp, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            return LocalDate.of(year, month, day).toEpochDay();
+        } catch (DateTimeException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private static int digits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static long monthOf(long epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return date.getYear() * 12L + date.getMonthValue();
+    }
+}
@@ -0,0 +1,333 @@
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * AccountCache hands out exactly one BankAccount object per account ID while only keeping
+ * a bounded number of them in memory.
+ *
+ * - Up to "capacity" accounts are held strongly. When there are more, the least recently
+ *   used ones are evicted with the CLOCK policy (an approximation of LRU): every hit sets
+ *   the account's "referenced" flag, and the eviction hand gives a flagged account a second
+ *   chance instead of evicting it. A hit is one map lookup plus one flag write, with no lock.
+ * - An evicted account is still remembered through a WeakReference. If some other code is
+ *   still holding it (e.g. a transfer in progress), the next lookup returns that same object
+ *   instead of reading a second copy from the repository. Only an account nobody holds any
+ *   more is garbage collected and read again on its next use.
+ *
+ * With no limit (capacity 0) nothing is ever evicted and the eviction order is not kept.
+ * Because of the second point, two lookups of the same ID always give the same object,
+ * which the account locks and "synchronized (account)" blocks depend on.
+ * Counts hits, misses (reads from the repository) and evictions.
+ */
+public class AccountCache {
+    // Lookups of the same ID are serialized on one of these, so an ID is never loaded twice
+    private static final int STRIPES = 64;
+
+    private final int capacity;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Eviction order: entries are added at the tail and the clock hand takes them from the head
+    private final Queue<Entry> clock = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    // Evicted accounts, kept only as long as something else still references them
+    private final Map<String, AccountReference> evicted = new ConcurrentHashMap<>();
+    private final ReferenceQueue<BankAccount> collected = new ReferenceQueue<>();
+    private final Object[] stripes = new Object[STRIPES];
+    private final Object evictLock = new Object();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder revived = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * An account held in memory
+     */
+    private static class Entry {
+        final BankAccount account;
+        volatile boolean referenced;
+        // Set once the entry is evicted or replaced, so the clock hand skips it
+        volatile boolean removed;
+
+        Entry(BankAccount account) {
+            this.account = account;
+        }
+    }
+
+    /**
+     * A weak reference that remembers which ID it belongs to, so it can be removed once collected
+     */
+    private static class AccountReference extends WeakReference<BankAccount> {
+        final String accountID;
+
+        AccountReference(BankAccount account, ReferenceQueue<BankAccount> queue) {
+            super(account, queue);
+            this.accountID = account.getAccountID();
+        }
+    }
+
+    /**
+     * Creates a cache
+     * @param capacity How many accounts to hold in memory, 0 or less for no limit
+     */
+    public AccountCache(int capacity) {
+        this.capacity = capacity <= 0 ? Integer.MAX_VALUE : capacity;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * Gets an account, reading it with the loader if it is not in memory
+     * @param accountID The account to look up
+     * @param loader Reads the account from the repository, returns null if it does not exist
+     * @return The one instance of the account, or null if it does not exist
+     */
+    public BankAccount get(String accountID, Function<String, BankAccount> loader) {
+        Entry entry = entries.get(accountID);
+        if (entry != null) {
+            entry.referenced = true;
+            hits.increment();
+            return entry.account;
+        }
+        BankAccount account;
+        synchronized (stripe(accountID)) {
+            account = lookup(accountID);
+            if (account == null) {
+                misses.increment();
+                account = loader.apply(accountID);
+                if (account == null) {
+                    return null;
+                }
+                insert(account);
+            }
+        }
+        evictIfNeeded();
+        return account;
+    }
+
+    /**
+     * Swaps a freshly read copy of an account for the instance already handed out, if any
+     * Used for bulk reads (e.g. listing every account), which should not push the hot
+     * accounts out of the cache, so a new account is only remembered weakly
+     * @param loaded An account just read from the repository
+     * @return The one instance of that account
+     */
+    public BankAccount intern(BankAccount loaded) {
+        String accountID = loaded.getAccountID();
+        Entry entry = entries.get(accountID);
+        if (entry != null) {
+            return entry.account;
+        }
+        synchronized (stripe(accountID)) {
+            entry = entries.get(accountID);
+            if (entry != null) {
+                return entry.account;
+            }
+            AccountReference reference = evicted.get(accountID);
+            BankAccount existing = reference == null ? null : reference.get();
+            if (existing != null) {
+                return existing;
+            }
+            evicted.put(accountID, new AccountReference(loaded, collected));
+            return loaded;
+        }
+    }
+
+    /**
+     * Adds an account, replacing any other instance with the same ID
+     * Putting the instance that is already held (as AccountStore does after every change)
+     * only marks it as used
+     * @param account The account to hold
+     * @return The instance it replaced (the account itself if it was already held), or null if there was none
+     */
+    public BankAccount put(BankAccount account) {
+        Entry current = entries.get(account.getAccountID());
+        if (current != null && current.account == account) {
+            current.referenced = true;
+            return account;
+        }
+        BankAccount previous;
+        synchronized (stripe(account.getAccountID())) {
+            previous = removeLocked(account.getAccountID());
+            insert(account);
+        }
+        evictIfNeeded();
+        return previous;
+    }
+
+    /**
+     * Forgets an account
+     * @param accountID The account to remove
+     * @return The instance that was removed, or null if there was none
+     */
+    public BankAccount remove(String accountID) {
+        synchronized (stripe(accountID)) {
+            return removeLocked(accountID);
+        }
+    }
+
+    /**
+     * Gets the accounts currently held in memory (not the evicted ones)
+     * @return A new list of the accounts
+     */
+    public List<BankAccount> residentAccounts() {
+        List<BankAccount> accounts = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            accounts.add(entry.account);
+        }
+        return accounts;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets how many lookups found an evicted account that was still in use elsewhere
+     * @return The number of lookups
+     */
+    public long getRevivedCount() {
+        return revived.sum();
+    }
+
+    /**
+     * Gets the share of lookups answered without reading the repository
+     * @return Between 0 and 1 (0 if there have been no lookups)
+     */
+    public double getHitRate() {
+        long found = hits.sum() + revived.sum();
+        long total = found + misses.sum();
+        return total == 0 ? 0 : (double) found / total;
+    }
+
+    /**
+     * Gets a one-line summary of the cache, for printing to the console
+     * @return The summary
+     */
+    public String getStats() {
+        String limit = capacity == Integer.MAX_VALUE ? "no limit" : "limit " + capacity;
+        return String.format("%d accounts in memory (%s), hits %d, revived %d, misses %d, evictions %d, hit rate %.1f%%",
+                size(), limit, getHitCount(), getRevivedCount(), getMissCount(), getEvictionCount(), getHitRate() * 100);
+    }
+
+    /**
+     * Finds an account in memory or among the evicted ones still in use, bringing an
+     * evicted one back into memory. Called while holding the ID's stripe lock
+     */
+    private BankAccount lookup(String accountID) {
+        Entry entry = entries.get(accountID);
+        if (entry != null) {
+            entry.referenced = true;
+            hits.increment();
+            return entry.account;
+        }
+        AccountReference reference = evicted.remove(accountID);
+        BankAccount account = reference == null ? null : reference.get();
+        if (account != null) {
+            revived.increment();
+            insert(account);
+        }
+        return account;
+    }
+
+    /**
+     * Adds an account as the newest entry. Called while holding the ID's stripe lock
+     */
+    private void insert(BankAccount account) {
+        Entry entry = new Entry(account);
+        entries.put(account.getAccountID(), entry);
+        // With no limit the hand never runs, so there is no eviction order to keep
+        if (capacity != Integer.MAX_VALUE) {
+            clock.add(entry);
+        }
+        size.incrementAndGet();
+    }
+
+    /**
+     * Removes both the in-memory and the evicted instance of an account.
+     * Called while holding the ID's stripe lock
+     */
+    private BankAccount removeLocked(String accountID) {
+        Entry entry = entries.remove(accountID);
+        AccountReference reference = evicted.remove(accountID);
+        if (entry != null) {
+            entry.removed = true;
+            size.decrementAndGet();
+            return entry.account;
+        }
+        return reference == null ? null : reference.get();
+    }
+
+    /**
+     * Runs the clock hand until the cache is back within its capacity
+     * Also drops the weak references of accounts that have been garbage collected
+     */
+    private void evictIfNeeded() {
+        purgeCollected();
+        if (size.get() <= capacity) {
+            return;
+        }
+        synchronized (evictLock) {
+            while (size.get() > capacity) {
+                Entry entry = clock.poll();
+                if (entry == null) {
+                    return;
+                }
+                if (entry.removed) {
+                    continue;
+                }
+                if (entry.referenced) {
+                    // Used since the hand last passed: give it a second chance
+                    entry.referenced = false;
+                    clock.add(entry);
+                    continue;
+                }
+                String accountID = entry.account.getAccountID();
+                synchronized (stripe(accountID)) {
+                    if (entries.get(accountID) != entry) {
+                        continue;
+                    }
+                    // Remember it weakly before removing it, so a lookup never misses both maps
+                    evicted.put(accountID, new AccountReference(entry.account, collected));
+                    entries.remove(accountID);
+                    entry.removed = true;
+                    size.decrementAndGet();
+                }
+                evictions.increment();
+            }
+        }
+    }
+
+    private void purgeCollected() {
+        Reference<? extends BankAccount> reference;
+        while ((reference = collected.poll()) != null) {
+            evicted.remove(((AccountReference) reference).accountID, reference);
+        }
+    }
+
+    private Object stripe(String accountID) {
+        return stripes[(accountID.hashCode() & 0x7fffffff) % STRIPES];
+    }
+}
@@ -0,0 +1,305 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AccountJournal is an append-only log of account changes (a write-ahead journal).
+ * Every time AccountStore changes an account, one line is appended to data/bank_accounts.journal
+ * instead of rewriting the whole accounts file. Each line holds the full state of the account,
+ * so replaying a line twice does no harm:
+ *   PUT,accountID,userID,balance,accountType
+ *   DEL,accountID
+ *
+ * Compaction folds the journal into a fresh bank_accounts.csv snapshot:
+ * 1. rotate() moves the current journal aside to bank_accounts.journal.old
+ * 2. the snapshot is written
+ * 3. discardRotated() deletes the old journal
+ * If the program stops between these steps, recovery simply replays the old journal and then
+ * the current one on top of whatever snapshot is on disk.
+ *
+ * Records are written with a group commit, in two steps:
+ * 1. enqueuePut()/enqueueDelete() only add the record to a queue in memory, so they are
+ *    cheap enough to call while holding account locks (which keeps the records of one
+ *    account in the same order as its changes)
+ * 2. await() writes every queued record with a single flush (and fsync), unless another
+ *    thread already wrote this record while the caller was waiting for its turn
+ * Two locks are used: the queue is guarded by AccountJournal.class and the file by writeLock.
+ * A thread holding writeLock may take the queue lock, never the other way around.
+ */
+public class AccountJournal {
+    private static final Log LOG = Log.get(AccountJournal.class);
+
+    private static final String JOURNAL_PATH = BankConfig.dataFile("bank_accounts.journal");
+    private static final String ROTATED_PATH = JOURNAL_PATH + ".old";
+
+    // Records waiting to be written, guarded by AccountJournal.class
+    private static final List<Entry> pending = new ArrayList<>();
+    // Only one thread writes to (or moves) the journal file at a time
+    private static final Object writeLock = new Object();
+
+    // Guarded by writeLock
+    private static BufferedWriter writer;
+    private static FileOutputStream stream;
+
+    /**
+     * One queued journal record
+     * A null record asks for the journal to be rotated at that point in the queue
+     * The fields are only read and written while holding writeLock
+     */
+    public static class Entry {
+        private final String record;
+        private boolean done;
+        private boolean written;
+
+        private Entry(String record) {
+            this.record = record;
+        }
+    }
+
+    /**
+     * Appends the current state of an account to the journal
+     * @param account The account that changed
+     * @return true if successful, false otherwise
+     */
+    public static boolean appendPut(BankAccount account) {
+        return await(enqueuePut(account));
+    }
+
+    /**
+     * Appends an account deletion to the journal
+     * @param accountID The ID of the deleted account
+     * @return true if successful, false otherwise
+     */
+    public static boolean appendDelete(String accountID) {
+        return await(enqueueDelete(accountID));
+    }
+
+    /**
+     * Queues the current state of an account, without writing it yet
+     * @param account The account that changed
+     * @return The queued record, pass it to await()
+     */
+    public static synchronized Entry enqueuePut(BankAccount account) {
+        return enqueue("PUT," + BankAccountCSV.toCSVLine(account));
+    }
+
+    /**
+     * Queues an account deletion, without writing it yet
+     * @param accountID The ID of the deleted account
+     * @return The queued record, pass it to await()
+     */
+    public static synchronized Entry enqueueDelete(String accountID) {
+        return enqueue("DEL," + accountID);
+    }
+
+    private static Entry enqueue(String record) {
+        Entry entry = new Entry(record);
+        pending.add(entry);
+        return entry;
+    }
+
+    /**
+     * Waits until a queued record is in the journal
+     * The first thread to get the write lock writes everything queued so far, so the
+     * threads waiting behind it usually find their record already written
+     * With -Dbank.journal.fsync=true the records are also forced to the disk
+     * @param entry A record returned by one of the enqueue methods
+     * @return true if the record was written, false otherwise
+     */
+    public static boolean await(Entry entry) {
+        synchronized (writeLock) {
+            if (!entry.done) {
+                writePending();
+            }
+            return entry.written;
+        }
+    }
+
+    /**
+     * Writes every queued record, in queue order, and rotates the journal where asked
+     * Caller holds writeLock
+     */
+    private static void writePending() {
+        List<Entry> batch;
+        synchronized (AccountJournal.class) {
+            batch = new ArrayList<>(pending);
+            pending.clear();
+        }
+        List<Entry> records = new ArrayList<>();
+        for (Entry entry : batch) {
+            if (entry.record != null) {
+                records.add(entry);
+                continue;
+            }
+            complete(records, write(records));
+            records.clear();
+            entry.written = moveAside();
+            entry.done = true;
+        }
+        complete(records, write(records));
+    }
+
+    private static void complete(List<Entry> records, boolean written) {
+        for (Entry entry : records) {
+            entry.written = written;
+            entry.done = true;
+        }
+    }
+
+    /**
+     * Writes records and pushes them to the operating system with one flush
+     */
+    private static boolean write(List<Entry> records) {
+        if (records.isEmpty()) {
+            return true;
+        }
+        try {
+            if (writer == null) {
+                new File(BankConfig.getDataDir()).mkdirs();
+                stream = new FileOutputStream(JOURNAL_PATH, true);
+                writer = new BufferedWriter(new OutputStreamWriter(stream));
+            }
+            for (Entry entry : records) {
+                writer.write(entry.record);
+                writer.newLine();
+            }
+            writer.flush();
+            if (BankConfig.isJournalFsyncEnabled()) {
+                stream.getFD().sync();
+            }
+            return true;
+        } catch (IOException e) {
+            LOG.error("Error writing to account journal: " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Applies the journal on top of the accounts loaded from the last snapshot
+     * The rotated journal is older than the current one, so it is replayed first
+     * @param accounts The snapshot accounts keyed by account ID, updated in place
+     * @return The number of records replayed
+     */
+    public static int replay(Map<String, BankAccount> accounts) {
+        synchronized (writeLock) {
+            return replayFile(new File(ROTATED_PATH), accounts) + replayFile(new File(JOURNAL_PATH), accounts);
+        }
+    }
+
+    private static int replayFile(File file, Map<String, BankAccount> accounts) {
+        if (!file.exists()) {
+            return 0;
+        }
+        int count = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] parts = line.split(",");
+                try {
+                    if (parts.length == 5 && parts[0].equals("PUT")) {
+                        BankAccount account = BankAccountCSV.createAccountFromData(Arrays.copyOfRange(parts, 1, 5));
+                        accounts.put(account.getAccountID(), account);
+                        count++;
+                    } else if (parts.length == 2 && parts[0].equals("DEL")) {
+                        accounts.remove(parts[1]);
+                        count++;
+                    }
+                    // Anything else is a torn last line from a crash, skip it
+                } catch (NumberFormatException e) {
+                    LOG.warn("Skipping bad journal record: " + line);
+                }
+            }
+        } catch (IOException e) {
+            LOG.error("Error reading account journal: " + e.getMessage(), e);
+        }
+        return count;
+    }
+
+    /**
+     * Asks for the current journal to be moved aside so new records start a fresh file
+     * The rotation is queued like a record: every record queued before it stays in the old
+     * journal and every record queued after it goes to the new one
+     * Callers hold the queue lock (synchronized on AccountJournal.class) while they copy the
+     * accounts for the snapshot, so the snapshot covers every record before the rotation
+     * @return The queued rotation, pass it to await() before writing the snapshot
+     */
+    public static synchronized Entry rotate() {
+        return enqueue(null);
+    }
+
+    /**
+     * Moves the current journal aside
+     * If an older rotated journal is still around (its snapshot failed), the current
+     * records are added to the end of it instead
+     * Caller holds writeLock
+     * @return true if successful, false otherwise
+     */
+    private static boolean moveAside() {
+        try {
+            closeWriter();
+            File current = new File(JOURNAL_PATH);
+            if (!current.exists()) {
+                return true;
+            }
+            File rotated = new File(ROTATED_PATH);
+            if (!rotated.exists()) {
+                return current.renameTo(rotated);
+            }
+            try (InputStream in = new FileInputStream(current);
+                 OutputStream out = new FileOutputStream(rotated, true)) {
+                in.transferTo(out);
+            }
+            return current.delete();
+        } catch (IOException e) {
+            LOG.error("Error rotating account journal: " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Deletes the rotated journal once a snapshot containing its records is safely on disk
+     */
+    public static void discardRotated() {
+        synchronized (writeLock) {
+            new File(ROTATED_PATH).delete();
+        }
+    }
+
+    /**
+     * Deletes both journal files
+     * Only safe right after a snapshot of every account has been written
+     */
+    public static void clear() {
+        synchronized (writeLock) {
+            writePending();
+            closeWriter();
+            new File(JOURNAL_PATH).delete();
+            new File(ROTATED_PATH).delete();
+        }
+    }
+
+    /**
+     * Writes any queued records and closes the journal file, it is reopened by the next append
+     */
+    public static void close() {
+        synchronized (writeLock) {
+            writePending();
+            closeWriter();
+        }
+    }
+
+    private static void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            LOG.error("Error closing account journal: " + e.getMessage(), e);
+        }
+        writer = null;
+        stream = null;
+    }
+}
@@ -0,0 +1,153 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Test class for AccountJournal and CsvAccountRepository
+ * Simulates the program stopping at different points (after journal appends, in the middle of
+ * a checkpoint, halfway through a line) and checks that the next start recovers every account.
+ * Runs in its own temporary data folder, so the real data/ is never touched.
+ * Prints PASS or FAIL for every check and exits with status 1 if any check failed
+ */
+
+public class AccountJournalTest {
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        // Must be set before any bank class builds its file paths
+        File dataDir = Files.createTempDirectory("journal-test").toFile();
+        System.setProperty("bank.data.dir", dataDir.getPath());
+        Log.setLevel(Log.Level.WARN);
+        File journal = new File(BankConfig.dataFile("bank_accounts.journal"));
+        File rotated = new File(BankConfig.dataFile("bank_accounts.journal.old"));
+
+        System.out.println("=== Starting Account Journal Test ===\n");
+
+        // Test 1: Crash after journal appends, before any checkpoint
+        // The snapshot is old; the journal holds the later changes, including a delete
+        // and a torn last line from the crash
+        System.out.println("Test 1: Replaying the journal over an old snapshot");
+        List<String> snapshot = new ArrayList<>();
+        snapshot.add(BankAccountCSV.toCSVLine(new BankAccount("A-C-1", 1, 100.00, "CHECKING")));
+        snapshot.add(BankAccountCSV.toCSVLine(new BankAccount("B-S-2", 2, 50.00, "SAVING")));
+        BankAccountCSV.writeAccounts(snapshot);
+        AccountJournal.appendPut(new BankAccount("A-C-1", 1, 80.00, "CHECKING"));
+        AccountJournal.appendPut(new BankAccount("B-S-2", 2, 70.00, "SAVING"));
+        AccountJournal.appendPut(new BankAccount("C-C-3", 3, 10.25, "CHECKING"));
+        AccountJournal.appendDelete("B-S-2");
+        AccountJournal.appendPut(new BankAccount("A-C-1", 1, 85.50, "CHECKING"));
+        AccountJournal.close();
+        try (FileWriter torn = new FileWriter(journal, true)) {
+            torn.write("PUT,A-C-1,1,99"); // Cut off by the crash, no newline
+        }
+
+        Map<String, BankAccount> recovered = restart();
+        check("latest journal state of A is recovered", balanceOf(recovered, "A-C-1") == 8550);
+        check("account created only in the journal is recovered", balanceOf(recovered, "C-C-3") == 1025);
+        check("account deleted in the journal stays deleted", !recovered.containsKey("B-S-2"));
+        check("torn last line is skipped", recovered.size() == 2);
+        check("journal is folded into a new snapshot and deleted", !journal.exists());
+        check("the new snapshot alone gives the same accounts", balanceOf(restart(), "A-C-1") == 8550);
+        System.out.println();
+
+        // Test 2: Crash in the middle of a checkpoint
+        // The rotated journal (older) and the current journal (newer) both survive;
+        // the older one has to be replayed first
+        System.out.println("Test 2: Replaying a rotated journal and the current one in order");
+        writeLines(rotated, "PUT,A-C-1,1,1.00,CHECKING", "PUT,D-S-4,4,5.00,SAVING");
+        writeLines(journal, "PUT,A-C-1,1,2.00,CHECKING", "DEL,D-S-4");
+        recovered = restart();
+        check("newer journal wins over the rotated one", balanceOf(recovered, "A-C-1") == 200);
+        check("delete in the newer journal removes the account from the rotated one", !recovered.containsKey("D-S-4"));
+        check("both journals are gone after the fold", !journal.exists() && !rotated.exists());
+        System.out.println();
+
+        // Test 3: Checkpoint
+        // Records before the rotation go to the rotated journal, later ones to a fresh journal,
+        // and a finished checkpoint leaves only the snapshot
+        System.out.println("Test 3: Checkpoint rotates, snapshots and discards");
+        List<BankAccount> live = new ArrayList<>(restart().values());
+        BankAccount a = live.get(0);
+        a.creditCents(100);
+        AccountJournal.appendPut(a);
+        CsvAccountRepository repository = new CsvAccountRepository();
+        check("checkpoint succeeds", repository.checkpoint(() -> live));
+        check("journals are gone after the checkpoint", !journal.exists() && !rotated.exists());
+        check("snapshot has the change", balanceOf(restart(), a.getAccountID()) == a.getBalanceCents());
+
+        AccountJournal.Entry before = AccountJournal.enqueuePut(new BankAccount("E-C-5", 5, 1.00, "CHECKING"));
+        AccountJournal.Entry rotation = AccountJournal.rotate();
+        AccountJournal.Entry after = AccountJournal.enqueuePut(new BankAccount("E-C-5", 5, 2.00, "CHECKING"));
+        check("waiting for the last record writes the whole queue", AccountJournal.await(after));
+        check("earlier records were written by the same wait", AccountJournal.await(before) && AccountJournal.await(rotation));
+        check("record queued before the rotation is in the rotated journal", contains(rotated, "PUT,E-C-5,5,1.00,CHECKING"));
+        check("record queued after the rotation is in the new journal", contains(journal, "PUT,E-C-5,5,2.00,CHECKING"));
+        check("replay gives the later record", balanceOf(restart(), "E-C-5") == 200);
+        System.out.println();
+
+        // Test 4: Group commit from many threads
+        // Each thread updates its own account; the journal must keep every account's records in order
+        System.out.println("Test 4: Concurrent appends keep each account's order");
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            String accountID = "T-C-" + t;
+            int userID = 100 + t;
+            threads[t] = new Thread(() -> {
+                for (int i = 1; i <= 200; i++) {
+                    AccountJournal.appendPut(new BankAccount(accountID, userID, (long) i * 100, "CHECKING"));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        recovered = restart();
+        boolean allLast = true;
+        for (int t = 0; t < threads.length; t++) {
+            allLast &= balanceOf(recovered, "T-C-" + t) == 20000;
+        }
+        check("every account ends at its last update", allLast);
+        System.out.println();
+
+        System.out.println("=== Account Journal Test Complete: " + (failures == 0 ? "all checks passed" : failures + " check(s) failed") + " ===");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * Loads the accounts the way the program does when it starts
+     */
+    private static Map<String, BankAccount> restart() {
+        AccountJournal.close();
+        Map<String, BankAccount> accounts = new HashMap<>();
+        for (BankAccount account : new CsvAccountRepository().loadAll()) {
+            accounts.put(account.getAccountID(), account);
+        }
+        return accounts;
+    }
+
+    private static long balanceOf(Map<String, BankAccount> accounts, String accountID) {
+        BankAccount account = accounts.get(accountID);
+        return account == null ? Long.MIN_VALUE : account.getBalanceCents();
+    }
+
+    private static void writeLines(File file, String... lines) throws IOException {
+        Files.write(file.toPath(), List.of(lines));
+    }
+
+    private static boolean contains(File file, String line) throws IOException {
+        return file.exists() && Files.readAllLines(file.toPath()).contains(line);
+    }
+
+    private static void check(String name, boolean passed) {
+        System.out.println((passed ? "PASS  " : "FAIL  ") + name);
+        if (!passed) {
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AccountLocks serializes changes to the same account without one global lock.
+ *
+ * Account IDs are hashed onto a fixed table of locks ("stripes"). Two operations on the same
+ * account always use the same stripe, while operations on different accounts usually use
+ * different stripes and run in parallel.
+ *
+ * When an operation needs several accounts (a transfer needs two), the stripes are always
+ * taken in ascending stripe order. Every thread uses the same order, so two transfers
+ * going opposite ways between the same accounts can never deadlock.
+ */
+public class AccountLocks {
+    // Power of two, so the stripe can be picked with a bit mask
+    private static final int STRIPE_COUNT = 1024;
+    private static final ReentrantLock[] stripes = new ReentrantLock[STRIPE_COUNT];
+
+    static {
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    private static int stripeFor(String accountID) {
+        int hash = accountID.hashCode();
+        hash ^= (hash >>> 16); // Spread the high bits so similar IDs land on different stripes
+        return hash & (STRIPE_COUNT - 1);
+    }
+
+    /**
+     * Locks a single account
+     * @param accountID The account to lock
+     */
+    public static void lock(String accountID) {
+        stripes[stripeFor(accountID)].lock();
+    }
+
+    /**
+     * Unlocks a single account locked with lock()
+     * @param accountID The account to unlock
+     */
+    public static void unlock(String accountID) {
+        stripes[stripeFor(accountID)].unlock();
+    }
+
+    /**
+     * Locks two accounts in a consistent order
+     * If both accounts share a stripe it is only locked once
+     * @param firstID One account
+     * @param secondID The other account
+     */
+    public static void lockBoth(String firstID, String secondID) {
+        int first = stripeFor(firstID);
+        int second = stripeFor(secondID);
+        stripes[Math.min(first, second)].lock();
+        if (first != second) {
+            stripes[Math.max(first, second)].lock();
+        }
+    }
+
+    /**
+     * Unlocks two accounts locked with lockBoth()
+     * @param firstID One account
+     * @param secondID The other account
+     */
+    public static void unlockBoth(String firstID, String secondID) {
+        int first = stripeFor(firstID);
+        int second = stripeFor(secondID);
+        if (first != second) {
+            stripes[Math.max(first, second)].unlock();
+        }
+        stripes[Math.min(first, second)].unlock();
+    }
+
+    /**
+     * Locks any number of accounts in a consistent order
+     * Every stripe is locked once, even if several of the accounts share it
+     * @param accountIDs The accounts to lock
+     */
+    public static void lockAll(Collection<String> accountIDs) {
+        boolean[] needed = stripesFor(accountIDs);
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            if (needed[i]) {
+                stripes[i].lock();
+            }
+        }
+    }
+
+    /**
+     * Unlocks accounts locked with lockAll()
+     * @param accountIDs The same accounts that were passed to lockAll()
+     */
+    public static void unlockAll(Collection<String> accountIDs) {
+        boolean[] needed = stripesFor(accountIDs);
+        for (int i = STRIPE_COUNT - 1; i >= 0; i--) {
+            if (needed[i]) {
+                stripes[i].unlock();
+            }
+        }
+    }
+
+    private static boolean[] stripesFor(Collection<String> accountIDs) {
+        boolean[] needed = new boolean[STRIPE_COUNT];
+        for (String accountID : accountIDs) {
+            needed[stripeFor(accountID)] = true;
+        }
+        return needed;
+    }
+}
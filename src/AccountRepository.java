@@ -0,0 +1,81 @@
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * AccountRepository is where AccountStore keeps its accounts between runs.
+ *
+ * AccountStore holds the accounts in memory (all of them, or a bounded AccountCache of the
+ * recently used ones) and tells the repository about each change.
+ * Implementations (picked with -Dbank.store.backend, see Repositories):
+ * - CsvAccountRepository     bank_accounts.csv snapshot plus the AccountJournal (default)
+ * - BinaryAccountRepository  fixed-width memory-mapped file, see BinaryAccountFile
+ * - JdbcAccountRepository    a table in an embedded SQL database
+ */
+public interface AccountRepository {
+
+    /**
+     * Reads every stored account
+     * Called once, when AccountStore is first used
+     * @return List of all accounts
+     */
+    List<BankAccount> loadAll();
+
+    /**
+     * Reads one stored account
+     * Used by AccountStore to read back an account it dropped from its cache
+     * @param accountID The account to read
+     * @return The account, or null if it does not exist
+     */
+    BankAccount find(String accountID);
+
+    /**
+     * Whether checkpoint() writes a full snapshot and so needs every account
+     * If so, AccountStore keeps every account in memory instead of a bounded cache
+     * @return true if every account must stay in memory
+     */
+    boolean needsAllAccounts();
+
+    /**
+     * Saves a new or changed account
+     * @param account The account to save
+     * @return true if successful, false otherwise
+     */
+    boolean save(BankAccount account);
+
+    /**
+     * Saves a new or changed account in two steps, for callers that hold account locks
+     * This method runs under the locks and puts the change in line, so the changes to one
+     * account reach the repository in the order they were made. The returned check does the
+     * slow part (such as writing the file) and is called once the locks are released.
+     * @param account The account to save
+     * @return Finishes the save, returns true if successful, false otherwise
+     */
+    BooleanSupplier stage(BankAccount account);
+
+    /**
+     * Saves a batch of changed accounts, used by batch jobs
+     * @param accounts The accounts that changed
+     * @return true if successful, false otherwise
+     */
+    boolean saveAll(Collection<BankAccount> accounts);
+
+    /**
+     * Deletes an account
+     * @param accountID The ID of the account to delete
+     * @return true if successful, false otherwise
+     */
+    boolean delete(String accountID);
+
+    /**
+     * Makes sure everything saved so far is stored for good
+     * Called by AccountStore's background flush and at shutdown
+     * @param allAccounts Gets every account in memory (all of them if needsAllAccounts() is true),
+     *                    for backends that write a full snapshot. Backends with a journal call
+     *                    it while holding the journal lock, so no change can land in a journal
+     *                    that is retired without being in the snapshot
+     * @return true if successful, false otherwise
+     */
+    boolean checkpoint(Supplier<Collection<BankAccount>> allAccounts);
+}
@@ -0,0 +1,295 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * AccountStore keeps the BankAccounts in memory, keyed by account ID.
+ * The accounts are read from the AccountRepository once, the first time the store is used
+ * (see Repositories for the choice of backend). They are held in an AccountCache, which
+ * makes sure there is only ever one object per account ID:
+ * - with the csv backend every account stays in memory, since its checkpoint writes them all
+ * - with the binary and jdbc backends only BankConfig.getAccountCacheSize() recently used
+ *   accounts are kept, and the others are read back from the repository when needed
+ * Each update is handed to the repository right away (with the CSV backend, one short
+ * journal line), and the repository is checkpointed in the background:
+ * - every BankConfig.getFlushIntervalMillis() milliseconds, or
+ * - as soon as BankConfig.getFlushDirtyThreshold() accounts are waiting to be written, and
+ * - one last time when the program shuts down.
+ * The store also keeps an index from user ID to that user's account IDs, so looking up
+ * one user's accounts does not scan every account in the system.
+ */
+public class AccountStore {
+    // The accounts in memory, created when the store is loaded
+    private static AccountCache accounts;
+    // Reads an account that is not in memory (returns null if every account is in memory)
+    private static Function<String, BankAccount> loader;
+    // Whether every account is kept in memory (no limit on the cache)
+    private static boolean allInMemory;
+    // Account IDs owned by each user, in the order they were added
+    // The lists are never changed in place, a new list replaces the old one on every change
+    private static final IntObjectMap<List<String>> accountsByUser = new IntObjectMap<>();
+    private static final ReentrantReadWriteLock userIndexLock = new ReentrantReadWriteLock();
+    // IDs of accounts changed (or deleted) since the last flush
+    private static final Set<String> dirtyAccounts = ConcurrentHashMap.newKeySet();
+    // Makes sure only one threshold flush is queued at a time
+    private static final AtomicBoolean flushQueued = new AtomicBoolean(false);
+    // Only one flush may write the file at a time
+    private static final Object flushLock = new Object();
+
+    private static volatile boolean loaded = false;
+    private static ScheduledExecutorService flusher;
+
+    /**
+     * Loads the accounts file the first time the store is used
+     * and starts the background flusher
+     */
+    private static void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (AccountStore.class) {
+            if (loaded) {
+                return;
+            }
+            AccountRepository repository = Repositories.accounts();
+            allInMemory = repository.needsAllAccounts() || BankConfig.getAccountCacheSize() <= 0;
+            int capacity = allInMemory ? 0 : BankConfig.getAccountCacheSize();
+            accounts = new AccountCache(capacity);
+            loader = allInMemory ? accountID -> null : repository::find;
+            for (BankAccount account : repository.loadAll()) {
+                // The user index always covers every account; the cache only starts with as many as fit
+                if (allInMemory || accounts.size() < capacity) {
+                    accounts.put(account);
+                }
+                indexAccount(account.getUserID(), account.getAccountID());
+            }
+
+            long interval = Math.max(1, BankConfig.getFlushIntervalMillis());
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "account-store-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(AccountStore::flush, interval, interval, TimeUnit.MILLISECONDS);
+            Runtime.getRuntime().addShutdownHook(new Thread(AccountStore::flush, "account-store-shutdown"));
+            loaded = true;
+        }
+    }
+
+    /**
+     * Gets a single account by its ID
+     * @param accountID The account to look up
+     * @return The account, or null if it does not exist
+     */
+    public static BankAccount getAccount(String accountID) {
+        ensureLoaded();
+        return accounts.get(accountID, loader);
+    }
+
+    /**
+     * Gets every account in the system
+     * If not every account is in memory they are read from the repository, but accounts
+     * already in use are still returned as the same objects. That is one full read of the
+     * repository per call, so code that goes over the whole book several times (such as
+     * ReportEngine.report) should call this once and reuse the list
+     * @return A new list holding all accounts
+     */
+    public static List<BankAccount> getAllAccounts() {
+        ensureLoaded();
+        if (allInMemory) {
+            return accounts.residentAccounts();
+        }
+        List<BankAccount> allAccounts = new ArrayList<>();
+        for (BankAccount account : Repositories.accounts().loadAll()) {
+            allAccounts.add(accounts.intern(account));
+        }
+        return allAccounts;
+    }
+
+    /**
+     * Gets a summary of the account cache (size, hits, misses and evictions)
+     * @return The summary
+     */
+    public static String getCacheStats() {
+        ensureLoaded();
+        return accounts.getStats();
+    }
+
+    /**
+     * Gets all accounts owned by one user
+     * @param userID The owner's user ID
+     * @return A new list holding the user's accounts
+     */
+    public static List<BankAccount> getUserAccounts(int userID) {
+        ensureLoaded();
+        List<String> accountIDs;
+        userIndexLock.readLock().lock();
+        try {
+            accountIDs = accountsByUser.getOrDefault(userID, List.of());
+        } finally {
+            userIndexLock.readLock().unlock();
+        }
+        List<BankAccount> userAccounts = new ArrayList<>();
+        for (String accountID : accountIDs) {
+            BankAccount account = accounts.get(accountID, loader);
+            if (account != null) {
+                userAccounts.add(account);
+            }
+        }
+        return userAccounts;
+    }
+
+    /**
+     * Adds a new account or replaces the stored copy of an existing one
+     * The change is saved to the repository right away and checkpointed by the next flush
+     * @param account The account to store
+     * @return true if the change was saved, false otherwise
+     */
+    public static boolean putAccount(BankAccount account) {
+        return stageAccount(account).getAsBoolean();
+    }
+
+    /**
+     * Same as putAccount, for callers that hold the account's lock
+     * The account is stored in memory and its save is put in line right away, while the
+     * slow part of the save is left to the returned check (see AccountRepository.stage)
+     * @param account The account to store
+     * @return Call it after releasing the lock, returns true if the change was saved
+     */
+    public static BooleanSupplier stageAccount(BankAccount account) {
+        ensureLoaded();
+        BankAccount previous = accounts.put(account);
+        if (previous == null || previous.getUserID() != account.getUserID()) {
+            if (previous != null) {
+                unindexAccount(previous.getUserID(), previous.getAccountID());
+            }
+            indexAccount(account.getUserID(), account.getAccountID());
+        }
+        markDirty(account.getAccountID());
+        return Repositories.accounts().stage(account);
+    }
+
+    /**
+     * Removes an account from the store
+     * @param accountID The ID of the account to remove
+     * @return true if the account existed, false otherwise
+     */
+    public static boolean removeAccount(String accountID) {
+        ensureLoaded();
+        // Look it up first, since the owner is needed and it may not be in memory
+        BankAccount removed = accounts.get(accountID, loader);
+        if (removed == null) {
+            return false;
+        }
+        accounts.remove(accountID);
+        unindexAccount(removed.getUserID(), accountID);
+        markDirty(accountID);
+        return Repositories.accounts().delete(accountID);
+    }
+
+    /**
+     * Saves a batch of accounts that were changed in memory, followed by one checkpoint
+     * Used by batch jobs instead of saving every account one by one
+     * (with the CSV backend the whole batch costs a single snapshot write)
+     * @param changed The accounts that changed
+     * @return true if the batch was saved, false otherwise
+     */
+    public static boolean commitBatch(Collection<BankAccount> changed) {
+        ensureLoaded();
+        for (BankAccount account : changed) {
+            dirtyAccounts.add(account.getAccountID());
+        }
+        boolean saved = Repositories.accounts().saveAll(changed);
+        return flush() && saved;
+    }
+
+    /**
+     * Adds an account ID to its owner's entry in the user index
+     */
+    private static void indexAccount(int userID, String accountID) {
+        userIndexLock.writeLock().lock();
+        try {
+            List<String> accountIDs = accountsByUser.get(userID);
+            if (accountIDs == null) {
+                accountsByUser.put(userID, List.of(accountID));
+            } else if (!accountIDs.contains(accountID)) {
+                List<String> updated = new ArrayList<>(accountIDs);
+                updated.add(accountID);
+                accountsByUser.put(userID, List.copyOf(updated));
+            }
+        } finally {
+            userIndexLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes an account ID from its owner's entry in the user index
+     */
+    private static void unindexAccount(int userID, String accountID) {
+        userIndexLock.writeLock().lock();
+        try {
+            List<String> accountIDs = accountsByUser.get(userID);
+            if (accountIDs == null) {
+                return;
+            }
+            List<String> updated = new ArrayList<>(accountIDs);
+            updated.remove(accountID);
+            if (updated.isEmpty()) {
+                accountsByUser.remove(userID);
+            } else {
+                accountsByUser.put(userID, List.copyOf(updated));
+            }
+        } finally {
+            userIndexLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records that an account needs to be written to disk
+     * Queues an early flush once too many accounts are waiting
+     */
+    private static void markDirty(String accountID) {
+        dirtyAccounts.add(accountID);
+        if (dirtyAccounts.size() >= BankConfig.getFlushDirtyThreshold()
+                && flushQueued.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushQueued.set(false);
+                flush();
+            });
+        }
+    }
+
+    /**
+     * Checkpoints the repository if anything changed since the last flush
+     * (with the CSV backend, compacts the journal into a new snapshot)
+     * @return true if the repository is up to date, false if the checkpoint failed
+     */
+    public static boolean flush() {
+        if (!loaded) {
+            return true;
+        }
+        synchronized (flushLock) {
+            if (dirtyAccounts.isEmpty()) {
+                return true;
+            }
+            // Clear before copying, so changes made while we write are picked up next time
+            List<String> pending = new ArrayList<>(dirtyAccounts);
+            dirtyAccounts.removeAll(pending);
+
+            if (!Repositories.accounts().checkpoint(accounts::residentAccounts)) {
+                dirtyAccounts.addAll(pending); // Try again on the next flush
+                return false;
+            }
+            return true;
+        }
+    }
+}
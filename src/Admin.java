@@ -24,11 +24,16 @@ public class Admin extends User {
     }
 
     public User createUser(String username, String password, String role, Integer userID) {
-        return new User(username, password, role, userID);  // Creates a new user with the provided details
+        User user = new User(username, password, role, userID);  // Creates a new user with the provided details
+        if (!UserDirectory.addUser(user)) {  // Indexes the user and appends it to users.csv
+            System.err.println("Warning: Failed to save new user " + username);
+        }
+        return user;
     }
 
     public void removeUserById(List<User> userList, int targetUserID) {
         userList.removeIf(user -> user.getUserID() == targetUserID);  // Removes the user with the specified ID
+        UserDirectory.removeUser(targetUserID);  // Removes the user from the directory and users.csv
         System.out.println("Removed user with ID " + targetUserID);
     }
 
@@ -37,8 +42,9 @@ public class Admin extends User {
     }
 
     public void resetUserUsername(User user, String newUsername) {
-        user.forceSetUsername(newUsername);  // Changes the user's username
-        System.out.println("Changed username to: " + newUsername);
+        if (UserDirectory.renameUser(user, newUsername)) {  // Changes the username and updates the directory
+            System.out.println("Changed username to: " + newUsername);
+        }
     }
 
     public void viewAllUsers(List<User> userList) {
@@ -8,6 +8,7 @@
  * */
 
 import java.util.List;
+import java.util.function.BooleanSupplier;
 
 /**
  * BankAccount class represents a bank account in the system.
@@ -20,19 +21,37 @@ public class BankAccount {
     // Unique identifier for the account
     private int userID;
     // Reference to the user who owns this account
-    private double balance;
-    // Current balance in the account
+    private volatile long balanceCents;
+    // Current balance in the account, in whole cents (see Money)
+    // Only changed while holding the account's lock in AccountLocks
     private String accountType;
     // Type of account (CHECKING or SAVING)
 
+    private static final Log LOG = Log.get(BankAccount.class);
+
+    // How long each operation takes, from the call until its transaction is logged (see Metrics)
+    private static final Metrics.Histogram DEPOSIT_LATENCY = Metrics.histogram("deposit", "Time to deposit, save and log");
+    private static final Metrics.Histogram WITHDRAW_LATENCY = Metrics.histogram("withdraw", "Time to withdraw, save and log");
+    private static final Metrics.Histogram TRANSFER_LATENCY = Metrics.histogram("transfer", "Time to transfer, save and log");
+    private static final Metrics.Counter INSUFFICIENT_FUNDS = Metrics.counter("insufficient_funds",
+            "Withdrawals and transfers refused for insufficient funds");
+
     /**
      Constructor to create a BankAccount to create one you need to have a accountId, userID
      balance, and accountType
      */
     public BankAccount(String accountId, int userID, double balance, String accountType) {
+        this(accountId, userID, Money.toCents(balance), accountType);
+    }
+
+    /**
+     Constructor for an account whose balance is already in whole cents, such as one read
+     back from storage, so it never goes through a double
+     */
+    public BankAccount(String accountId, int userID, long balanceCents, String accountType) {
         this.accountID = accountId;
         this.userID = userID;
-        this.balance = balance;
+        this.balanceCents = balanceCents;
         this.accountType = accountType.toUpperCase(); // Store account type in uppercase
     }
 
@@ -46,7 +65,11 @@ public class BankAccount {
     }
 
     public double getBalance() {
-        return balance;
+        return Money.toDouble(balanceCents);
+    }
+
+    public long getBalanceCents() {
+        return balanceCents;
     }
 
     public String getAccountType(){
@@ -83,14 +106,32 @@ public class BankAccount {
      * it will then use the transaction class to create a new transaction object and it will record it from there
      * after it will print out the transaction with the ID
      * It will update using the "this" keyword so it know we are refrencing the current object
+     * The balance is changed and saved while holding this account's lock, so concurrent deposits are never lost
+     * (only queued under the lock, the journal write happens after it is released, see AccountStore.stageAccount)
      */
     public void deposit(double amount) {
-        if (amount > 0) {
-            balance = balance + amount;
-            System.out.println("You have Deposited: $" + amount);
+        long start = System.nanoTime();
+        long cents = Money.toCents(amount);
+        if (cents > 0) {
+            if (!logAccepting("Deposit")) {
+                return;
+            }
+            BooleanSupplier saved;
+            AccountLocks.lock(this.accountID);
+            try {
+                balanceCents = balanceCents + cents;
+                // Update the account in CSV after deposit
+                saved = BankAccountCSV.stageUpdate(this);
+            } finally {
+                AccountLocks.unlock(this.accountID);
+            }
+            if (!saved.getAsBoolean()) {
+                LOG.error("Deposit was made but the account could not be saved");
+            }
+            LOG.info("You have Deposited: $" + amount);
 
             // Create and log the deposit transaction
-            System.out.println("Creating deposit transaction for account: " + this.accountID);
+            LOG.debug(() -> "Creating deposit transaction for account: " + this.accountID);
             Transaction depositTransaction = new Transaction(
                     "SYSTEM",           // source account (SYSTEM for deposits)
                     this.accountID,     // destination account
@@ -98,28 +139,49 @@ public class BankAccount {
                     "DEPOSIT",         // transaction type
                     "Cash deposit"     // note
             );
-            System.out.println("Deposit transaction created with ID: " + depositTransaction.getTransactionId());
-            TransactionLogger.log(depositTransaction);
-
-            // Update the account in CSV after deposit
-            BankAccountCSV.updateAccount(this);
+            LOG.debug(() -> "Deposit transaction created with ID: " + depositTransaction.getTransactionId());
+            if (!TransactionLogger.log(depositTransaction)) {
+                LOG.error("Deposit was saved but its transaction record could not be written");
+            }
+            DEPOSIT_LATENCY.recordSince(start);
         }
         else {
-            System.out.println("Invalid deposit amount. It has to be greater than 0");
+            LOG.info("Invalid deposit amount. It has to be greater than 0");
         }
     }
 
     /**
      * Same things as Deposit but it will handle taking out money
+     * The balance check and the withdrawal happen under the same lock, so two withdrawals
+     * can never both pass the check and overdraw the account
      */
     public void withdraw(double amount) {
-        if (amount > 0) {
-            if (balance >= amount) {
-                balance = balance - amount;
-                System.out.println("You have withdrew: $" + amount);
+        long start = System.nanoTime();
+        long cents = Money.toCents(amount);
+        if (cents > 0) {
+            if (!logAccepting("Withdrawal")) {
+                return;
+            }
+            BooleanSupplier saved = null;
+            AccountLocks.lock(this.accountID);
+            try {
+                if (balanceCents >= cents) {
+                    balanceCents = balanceCents - cents;
+                    // Update the account in CSV after withdrawal
+                    saved = BankAccountCSV.stageUpdate(this);
+                }
+            } finally {
+                AccountLocks.unlock(this.accountID);
+            }
+
+            if (saved != null) {
+                if (!saved.getAsBoolean()) {
+                    LOG.error("Withdrawal was made but the account could not be saved");
+                }
+                LOG.info("You have withdrew: $" + amount);
 
                 // Create and log the withdrawal transaction
-                System.out.println("Creating withdrawal transaction for account: " + this.accountID);
+                LOG.debug(() -> "Creating withdrawal transaction for account: " + this.accountID);
                 Transaction withdrawalTransaction = new Transaction(
                         this.accountID,  // source account
                         "SYSTEM",        // destination account (SYSTEM for withdrawals)
@@ -127,18 +189,19 @@ public class BankAccount {
                         "WITHDRAWAL",   // transaction type
                         "Cash withdrawal" // note
                 );
-                System.out.println("Withdrawal transaction created with ID: " + withdrawalTransaction.getTransactionId());
-                TransactionLogger.log(withdrawalTransaction);
-
-                // Update the account in CSV after withdrawal
-                BankAccountCSV.updateAccount(this);
+                LOG.debug(() -> "Withdrawal transaction created with ID: " + withdrawalTransaction.getTransactionId());
+                if (!TransactionLogger.log(withdrawalTransaction)) {
+                    LOG.error("Withdrawal was saved but its transaction record could not be written");
+                }
             }
             else {
-                System.out.println("Insufficient funds for withdrawal");
+                LOG.info("Insufficient funds for withdrawal");
+                INSUFFICIENT_FUNDS.increment();
             }
+            WITHDRAW_LATENCY.recordSince(start);
         }
         else {
-            System.out.println("Invalid withdrawal amount. It must be greater then 0.");
+            LOG.info("Invalid withdrawal amount. It must be greater then 0.");
         }
     }
 
@@ -149,16 +212,43 @@ public class BankAccount {
      * now if the amount is greater then 0 it will deposit it into the destination account
      * after that it will log it using the transfer class (creating a transfer object)
      * and then making sure you update both accounts in the CSV FILE
+     * Both accounts are locked (in a fixed order, see AccountLocks) for the check and the update,
+     * so the transfer is atomic and transfers between other accounts keep running in parallel
+     * Under the locks both accounts are only queued for the journal; the journal is written
+     * (one flush for every update queued meanwhile) after the locks are released
      */
     public boolean transfer(BankAccount destinationAccount, double amount) {
-        if (amount > 0) {
-            if (balance >= amount) {
-                // Withdraw from this account
-                balance = balance - amount;
+        long start = System.nanoTime();
+        long cents = Money.toCents(amount);
+        if (cents > 0) {
+            if (!logAccepting("Transfer")) {
+                return false;
+            }
+            BooleanSupplier sourceSaved = null;
+            BooleanSupplier destinationSaved = null;
+            AccountLocks.lockBoth(this.accountID, destinationAccount.accountID);
+            try {
+                if (balanceCents >= cents) {
+                    // Withdraw from this account
+                    balanceCents = balanceCents - cents;
 
-                // Deposit to destination account
-                destinationAccount.balance = destinationAccount.balance + amount;
+                    // Deposit to destination account
+                    destinationAccount.balanceCents = destinationAccount.balanceCents + cents;
 
+                    // Update both accounts in CSV
+                    sourceSaved = BankAccountCSV.stageUpdate(this);
+                    destinationSaved = BankAccountCSV.stageUpdate(destinationAccount);
+                }
+            } finally {
+                AccountLocks.unlockBoth(this.accountID, destinationAccount.accountID);
+            }
+
+            if (sourceSaved != null) {
+                // Both checks run, so the second account's save is finished even if the first failed
+                boolean saved = sourceSaved.getAsBoolean();
+                if (!destinationSaved.getAsBoolean() || !saved) {
+                    LOG.error("Transfer was made but the accounts could not be saved");
+                }
                 // Create and log the transfer transaction
                 Transaction transferTransaction = new Transaction(
                         this.accountID,           // source account
@@ -167,23 +257,48 @@ public class BankAccount {
                         "TRANSFER",              // transaction type
                         "Transfer between accounts" // note
                 );
-                TransactionLogger.log(transferTransaction);
-
-                // Update both accounts in CSV
-                BankAccountCSV.updateAccount(this);
-                BankAccountCSV.updateAccount(destinationAccount);
-
+                if (!TransactionLogger.log(transferTransaction)) {
+                    LOG.error("Transfer was saved but its transaction record could not be written");
+                }
+                TRANSFER_LATENCY.recordSince(start);
                 return true;
             }
             else {
-                System.out.println("Insufficient funds for transfer");
+                LOG.info("Insufficient funds for transfer");
+                INSUFFICIENT_FUNDS.increment();
+                TRANSFER_LATENCY.recordSince(start);
                 return false;
             }
         }
         else {
-            System.out.println("Invalid transfer amount. It must be greater than 0.");
+            LOG.info("Invalid transfer amount. It must be greater than 0.");
+            return false;
+        }
+    }
+
+    /**
+     * Checks that the transaction log still takes records before any money is moved
+     * Once a write to the log has failed for good, a change to a balance would have no
+     * transaction record, so the operation is refused instead
+     * @param operation The name of the operation, for the error message
+     * @return true if the operation may go ahead
+     */
+    static boolean logAccepting(String operation) {
+        if (TransactionLogger.isStopped()) {
+            LOG.error(operation + " refused: the transaction log stopped after a write failure");
             return false;
         }
+        return true;
+    }
+
+    /**
+     * Adds cents to the balance without logging a transaction or saving the account
+     * Used by batch jobs like InterestEngine, which save and log all their changes at once afterwards
+     * The caller must hold this account's lock (see AccountLocks)
+     * @param cents The amount to add, in cents (negative to take money out)
+     */
+    void creditCents(long cents) {
+        balanceCents = balanceCents + cents;
     }
 
     /**
@@ -194,6 +309,15 @@ public class BankAccount {
         return BankAccountCSV.deleteAccount(this.accountID);
     }
 
+    /**
+     * Finds an account by its ID
+     * @param accountID The ID of the account to find
+     * @return The BankAccount, or null if no account has that ID
+     */
+    public static BankAccount findAccount(String accountID) {
+        return BankAccountCSV.findAccount(accountID);
+    }
+
     /**
      * Gets all accounts for a specific user
      * @param userID The ID of the user whose accounts to retrieve
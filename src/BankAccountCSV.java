@@ -1,71 +1,30 @@
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.function.BooleanSupplier;
 
 /**
  * BankAccountCSV class handles all file operations for bank accounts.
  * It provides methods to read, write, update, and delete bank account records
  * from a CSV file. The CSV file stores account information in the format:
  * accountID,userID,balance,accountType
+ * The accounts themselves are kept in memory by AccountStore; this class loads and saves the file for it.
  */
 public class BankAccountCSV {
     // Path to the CSV file storing bank account data
-    private static final String CSV_FILE_PATH = "data/bank_accounts.csv";
+    private static final String CSV_FILE_PATH = BankConfig.dataFile("bank_accounts.csv");
 
     /**
      * Writes a BankAccount to the CSV file
      * If the account already exists, it will be updated
+     * The account is stored in memory and journaled right away, and written to the file by AccountStore's next flush
      * @param account The BankAccount to write
      * @return true if successful, false otherwise
      */
     public static boolean writeToCSV(BankAccount account) {
-        try {
-            // Create data directory if it doesn't exist
-            new File("data").mkdirs();
-
-            // Read existing accounts to check for duplicates
-            Map<String, BankAccount> existingAccounts = new HashMap<>();
-            File file = new File(CSV_FILE_PATH);
-            if (file.exists()) {
-                BufferedReader br = new BufferedReader(new FileReader(file));
-                String line;
-                while ((line = br.readLine()) != null) {
-                    String[] data = line.split(",");
-                    if (data.length == 4) {
-                        existingAccounts.put(data[0], createAccountFromData(data));
-                    }
-                }
-                br.close();
-            }
-
-            // Check if account already exists
-            if (existingAccounts.containsKey(account.getAccountID())) {
-                // Update existing account
-                existingAccounts.put(account.getAccountID(), account);
-            } else {
-                // Add new account
-                existingAccounts.put(account.getAccountID(), account);
-            }
-
-            // Write all accounts back to file
-            FileWriter fw = new FileWriter(file);
-            BufferedWriter bw = new BufferedWriter(fw);
-            for (BankAccount acc : existingAccounts.values()) {
-                String line = String.format("%s,%d,%.2f,%s%n",
-                        acc.getAccountID(),
-                        acc.getUserID(),
-                        acc.getBalance(),
-                        acc.getAccountType());
-                bw.write(line);
-            }
-            bw.close();
-            return true;
-        } catch (IOException e) {
-            System.err.println("Error writing to CSV: " + e.getMessage());
-            return false;
-        }
+        return AccountStore.putAccount(account);
     }
 
     /**
@@ -78,31 +37,30 @@ public class BankAccountCSV {
         return writeToCSV(account); // Reuse writeToCSV as it handles updates
     }
 
+    /**
+     * Updates a BankAccount while the caller holds its lock (see AccountStore.stageAccount)
+     * @param account The updated BankAccount
+     * @return Call it after releasing the lock, returns true if successful, false otherwise
+     */
+    public static BooleanSupplier stageUpdate(BankAccount account) {
+        return AccountStore.stageAccount(account);
+    }
+
     /**
      * Reads all BankAccounts from the CSV file (Admin function)
      * @return List of all BankAccount objects in the system
      */
     public static List<BankAccount> readAllAccountsAdmin() {
-        List<BankAccount> accounts = new ArrayList<>();
-        try {
-            File file = new File(CSV_FILE_PATH);
-            if (!file.exists()) {
-                return accounts;
-            }
+        return AccountStore.getAllAccounts();
+    }
 
-            BufferedReader br = new BufferedReader(new FileReader(file));
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] data = line.split(",");
-                if (data.length == 4) {
-                    accounts.add(createAccountFromData(data));
-                }
-            }
-            br.close();
-        } catch (IOException e) {
-            System.err.println("Error reading from CSV: " + e.getMessage());
-        }
-        return accounts;
+    /**
+     * Finds a single BankAccount by its ID
+     * @param accountID The ID of the account to find
+     * @return The BankAccount, or null if no account has that ID
+     */
+    public static BankAccount findAccount(String accountID) {
+        return AccountStore.getAccount(accountID);
     }
 
     /**
@@ -111,93 +69,117 @@ public class BankAccountCSV {
      * @return List of BankAccount objects belonging to the user
      */
     public static List<BankAccount> readUserAccounts(int userID) {
-        List<BankAccount> userAccounts = new ArrayList<>();
-        try {
-            File file = new File(CSV_FILE_PATH);
-            if (!file.exists()) {
-                return userAccounts;
-            }
+        return AccountStore.getUserAccounts(userID);
+    }
+
+    /**
+     * Deletes a BankAccount from the CSV file (Admin function)
+     * @param accountID The ID of the account to delete
+     * @return true if successful, false otherwise
+     */
+    public static boolean deleteAccount(String accountID) {
+        return AccountStore.removeAccount(accountID);
+    }
 
-            BufferedReader br = new BufferedReader(new FileReader(file));
+    /**
+     * Reads every account from the CSV file
+     * Used by AccountStore to load the accounts once at startup
+     * @return List of all BankAccount objects in the file
+     */
+    static List<BankAccount> loadAccounts() {
+        List<BankAccount> accounts = new ArrayList<>();
+        File file = new File(CSV_FILE_PATH);
+        if (!file.exists()) {
+            return accounts;
+        }
+
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
             String line;
             while ((line = br.readLine()) != null) {
                 String[] data = line.split(",");
-                if (data.length == 4 && Integer.parseInt(data[1]) == userID) {
-                    userAccounts.add(createAccountFromData(data));
+                if (data.length == 4) {
+                    try {
+                        accounts.add(createAccountFromData(data));
+                    } catch (NumberFormatException e) {
+                        System.err.println("Error parsing account data: " + e.getMessage());
+                    }
                 }
             }
-            br.close();
         } catch (IOException e) {
             System.err.println("Error reading from CSV: " + e.getMessage());
-        } catch (NumberFormatException e) {
-            System.err.println("Error parsing account data: " + e.getMessage());
         }
-        return userAccounts;
+        return accounts;
     }
 
     /**
-     * Deletes a BankAccount from the CSV file (Admin function)
-     * @param accountID The ID of the account to delete
+     * Rewrites the CSV file so it holds exactly the given rows
+     * The rows go to a temporary file first, which then replaces the old file,
+     * so a crash part way through never leaves a half written accounts file
+     * @param lines All account rows, as produced by toCSVLine
      * @return true if successful, false otherwise
      */
-    public static boolean deleteAccount(String accountID) {
+    static boolean writeAccounts(List<String> lines) {
         try {
-            File file = new File(CSV_FILE_PATH);
-            if (!file.exists()) {
-                return false;
-            }
+            // Create data directory if it doesn't exist
+            new File(BankConfig.getDataDir()).mkdirs();
 
-            // Read all accounts except the one to delete
-            Map<String, BankAccount> accounts = new HashMap<>();
-            BufferedReader br = new BufferedReader(new FileReader(file));
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] data = line.split(",");
-                if (data.length == 4 && !data[0].equals(accountID)) {
-                    accounts.put(data[0], createAccountFromData(data));
+            File file = new File(CSV_FILE_PATH);
+            File tempFile = new File(CSV_FILE_PATH + ".tmp");
+            try (BufferedWriter bw = new BufferedWriter(new FileWriter(tempFile))) {
+                for (String line : lines) {
+                    bw.write(line);
+                    bw.newLine();
                 }
             }
-            br.close();
-
-            // Write back all accounts except the deleted one
-            FileWriter fw = new FileWriter(file);
-            BufferedWriter bw = new BufferedWriter(fw);
-            for (BankAccount acc : accounts.values()) {
-                String accountLine = String.format("%s,%d,%.2f,%s%n",
-                        acc.getAccountID(),
-                        acc.getUserID(),
-                        acc.getBalance(),
-                        acc.getAccountType());
-                bw.write(accountLine);
-            }
-            bw.close();
+            Files.move(tempFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
             return true;
         } catch (IOException e) {
-            System.err.println("Error deleting from CSV: " + e.getMessage());
+            System.err.println("Error writing to CSV: " + e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Formats an account as one CSV row (without the line break)
+     * @param account The account to format
+     * @return The row in the format accountID,userID,balance,accountType
+     */
+    static String toCSVLine(BankAccount account) {
+        StringBuilder sb = new StringBuilder(48)
+                .append(account.getAccountID()).append(',')
+                .append(account.getUserID()).append(',');
+        Money.appendTo(sb, account.getBalanceCents()).append(',');
+        return sb.append(account.getAccountType()).toString();
+    }
+
     /**
      * Helper method to create a BankAccount from CSV data
      * Creates either a SavingsAccount or regular BankAccount based on account type
      * @param data Array of strings containing account data from CSV
      * @return Newly created BankAccount object
      */
-    private static BankAccount createAccountFromData(String[] data) {
-        if (data[3].equals("SAVING")) {
-            return new SavingsAccount(
-                    data[0],                    // accountID
-                    Integer.parseInt(data[1]),  // userID
-                    Double.parseDouble(data[2]) // balance
-            );
-        } else {
-            return new BankAccount(
-                    data[0],                    // accountID
-                    Integer.parseInt(data[1]),  // userID
-                    Double.parseDouble(data[2]), // balance
-                    data[3]                     // accountType
-            );
+    static BankAccount createAccountFromData(String[] data) {
+        return createAccount(
+                data[0],                    // accountID
+                Integer.parseInt(data[1]),  // userID
+                Money.parse(data[2]),       // balance, parsed exactly
+                data[3]                     // accountType
+        );
+    }
+
+    /**
+     * Creates a BankAccount object of the right class for its type
+     * @param accountID The account ID
+     * @param userID The owner's user ID
+     * @param balanceCents The balance in cents
+     * @param accountType The account type (SAVING accounts become SavingsAccount objects)
+     * @return The new BankAccount
+     */
+    static BankAccount createAccount(String accountID, int userID, long balanceCents, String accountType) {
+        if (accountType.equals("SAVING")) {
+            return new SavingsAccount(accountID, userID, balanceCents);
         }
+        return new BankAccount(accountID, userID, balanceCents, accountType);
     }
 }
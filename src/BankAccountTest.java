@@ -21,6 +21,7 @@ public class BankAccountTest {
         System.out.println("Test 2: Testing deposits");
         System.out.println("Initial checking balance: $" + checkingAccount.getBalance());
         checkingAccount.deposit(100.0);
+        Log.flush(); // Print the operation's messages before the results
         System.out.println("After deposit balance: $" + checkingAccount.getBalance());
         System.out.println();
 
@@ -29,6 +30,7 @@ public class BankAccountTest {
         System.out.println("Test 3: Testing withdrawals");
         System.out.println("Initial savings balance: $" + savingsAccount.getBalance());
         savingsAccount.withdraw(200.0);
+        Log.flush(); // Print the operation's messages before the results
         System.out.println("After withdrawal balance: $" + savingsAccount.getBalance());
         System.out.println();
 
@@ -37,8 +39,10 @@ public class BankAccountTest {
         System.out.println("Test 4: Testing invalid operations");
         System.out.println("Attempting to withdraw more than balance:");
         savingsAccount.withdraw(10000.0);
+        Log.flush(); // Print the operation's messages before the results
         System.out.println("Attempting to deposit negative amount:");
         checkingAccount.deposit(-50.0);
+        Log.flush(); // Print the operation's messages before the results
         System.out.println();
 
         // Test 5: Test transfers
@@ -49,6 +53,7 @@ public class BankAccountTest {
         System.out.println("Savings balance: $" + savingsAccount.getBalance());
         
         boolean transferSuccess = checkingAccount.transfer(savingsAccount, 150.0);
+        Log.flush(); // Print the operation's messages before the results
         System.out.println("Transfer successful: " + transferSuccess);
         
         System.out.println("After transfer:");
@@ -0,0 +1,280 @@
+import java.io.File;
+
+/**
+ * BankConfig holds the tunable settings of the banking system in one place.
+ * Every setting has a sensible default and can be overridden with a JVM system property,
+ * for example: java -Dbank.store.flushIntervalMs=500 DemoMain
+ */
+public class BankConfig {
+
+    /**
+     * Folder that holds every data file (accounts, users, transactions, journals)
+     * Must be set before the banking classes are first used, since they look up their paths once
+     * Property: bank.data.dir (default "data")
+     * @return The data folder
+     */
+    public static String getDataDir() {
+        return System.getProperty("bank.data.dir", "data");
+    }
+
+    /**
+     * Gets the path of a file inside the data folder
+     * @param name The file name, e.g. "users.csv"
+     * @return The path to the file
+     */
+    public static String dataFile(String name) {
+        return new File(getDataDir(), name).getPath();
+    }
+
+    /**
+     * Which storage backend holds accounts, users and transactions (see Repositories)
+     * Property: bank.store.backend, one of csv, binary or jdbc (default csv)
+     * @return The backend name in lowercase
+     */
+    public static String getStoreBackend() {
+        String backend = System.getProperty("bank.store.backend", "csv").trim().toLowerCase();
+        if (!backend.equals("csv") && !backend.equals("binary") && !backend.equals("jdbc")) {
+            System.err.println("Invalid value for bank.store.backend: " + backend + ". Using csv");
+            return "csv";
+        }
+        return backend;
+    }
+
+    /**
+     * JDBC URL of the embedded database used by the jdbc backend
+     * The driver for the URL (for example H2 or SQLite) must be on the classpath
+     * Property: bank.jdbc.url (default jdbc:h2:file:<data folder>/bank)
+     * @return The JDBC URL
+     */
+    public static String getJdbcUrl() {
+        return System.getProperty("bank.jdbc.url", "jdbc:h2:file:" + new File(getDataDir(), "bank").getAbsolutePath());
+    }
+
+    /**
+     * Database user for the jdbc backend
+     * Property: bank.jdbc.user (default sa)
+     * @return The user name
+     */
+    public static String getJdbcUser() {
+        return System.getProperty("bank.jdbc.user", "sa");
+    }
+
+    /**
+     * Database password for the jdbc backend
+     * Property: bank.jdbc.password (default empty)
+     * @return The password
+     */
+    public static String getJdbcPassword() {
+        return System.getProperty("bank.jdbc.password", "");
+    }
+
+    /**
+     * How many database connections the jdbc backend may keep open
+     * Threads beyond this wait for a free connection; 1 puts every statement on one connection
+     * Property: bank.jdbc.poolSize (default 4)
+     * @return The pool size
+     */
+    public static int getJdbcPoolSize() {
+        return (int) getLong("bank.jdbc.poolSize", 4);
+    }
+
+    /**
+     * How often the account store writes its pending changes to disk
+     * Property: bank.store.flushIntervalMs (default 1000)
+     * @return The flush interval in milliseconds
+     */
+    public static long getFlushIntervalMillis() {
+        return getLong("bank.store.flushIntervalMs", 1000);
+    }
+
+    /**
+     * How many changed accounts the store may hold before it flushes early
+     * Property: bank.store.flushThreshold (default 100)
+     * @return The dirty account threshold
+     */
+    public static int getFlushDirtyThreshold() {
+        return (int) getLong("bank.store.flushThreshold", 100);
+    }
+
+    /**
+     * How many accounts the account store keeps in memory with the binary and jdbc backends
+     * Less recently used accounts are dropped and read back when next used.
+     * This limit does NOT apply to the csv backend (the default): it always keeps every
+     * account in memory, since its checkpoint rewrites them all, so memory grows with the
+     * number of accounts. Use the binary or jdbc backend for a book too large for the heap.
+     * Property: bank.store.cacheSize (default 100000, 0 for no limit)
+     * @return The number of accounts kept in memory
+     */
+    public static int getAccountCacheSize() {
+        return (int) getLong("bank.store.cacheSize", 100_000);
+    }
+
+    /**
+     * Whether every account journal record is forced to the disk before the update returns
+     * Slower, but no acknowledged update is lost if the machine loses power
+     * Property: bank.journal.fsync (default false)
+     * @return true if journal appends are synced to disk
+     */
+    public static boolean isJournalFsyncEnabled() {
+        return Boolean.parseBoolean(System.getProperty("bank.journal.fsync", "false"));
+    }
+
+    /**
+     * Whether every write to the binary accounts file is forced to the disk before it returns
+     * Without it the write still survives the program crashing, just not a power loss
+     * Property: bank.binary.fsync (default false)
+     * @return true if binary account writes are synced to disk
+     */
+    public static boolean isBinaryFsyncEnabled() {
+        return Boolean.parseBoolean(System.getProperty("bank.binary.fsync", "false"));
+    }
+
+    /**
+     * How long TransactionLogger.log() waits for its record to reach the disk
+     * Property: bank.log.durability = NONE, BATCH or RECORD (default BATCH)
+     * @return The configured durability level
+     */
+    public static TransactionLogger.Durability getLogDurability() {
+        String value = System.getProperty("bank.log.durability", "BATCH");
+        try {
+            return TransactionLogger.Durability.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid value for bank.log.durability: " + value + ". Using BATCH");
+            return TransactionLogger.Durability.BATCH;
+        }
+    }
+
+    /**
+     * The most transactions the logger writes in one batch
+     * Property: bank.log.maxBatch (default 512)
+     * @return The maximum batch size
+     */
+    public static int getLogMaxBatch() {
+        return (int) getLong("bank.log.maxBatch", 512);
+    }
+
+    /**
+     * How long the logger may hold the first record of a batch while waiting for more
+     * Property: bank.log.maxLatencyMs (default 2)
+     * @return The maximum extra latency in milliseconds
+     */
+    public static long getLogMaxLatencyMillis() {
+        return getLong("bank.log.maxLatencyMs", 2);
+    }
+
+    /**
+     * Whether the transaction log starts a new segment file every day
+     * Property: bank.log.rollDaily (default true)
+     * @return true if segments are rolled at midnight
+     */
+    public static boolean isLogRollDaily() {
+        return Boolean.parseBoolean(System.getProperty("bank.log.rollDaily", "true"));
+    }
+
+    /**
+     * How big a transaction log segment may grow before a new one is started
+     * Property: bank.log.segmentMaxBytes (default 67108864, 64 MB)
+     * @return The maximum segment size in bytes
+     */
+    public static long getLogSegmentMaxBytes() {
+        return getLong("bank.log.segmentMaxBytes", 64L * 1024 * 1024);
+    }
+
+    /**
+     * Size of the bloom filter of account IDs kept for each log segment
+     * More bits mean fewer segments read for nothing, at 1 byte per 8 bits per segment
+     * Property: bank.log.bloomBits (default 65536)
+     * @return The number of bits per filter
+     */
+    public static int getLogBloomBits() {
+        return (int) getLong("bank.log.bloomBits", 65536);
+    }
+
+    /**
+     * How many transaction IDs are reserved each time the high-water mark is saved
+     * Bigger blocks mean fewer disk writes, but a larger gap in the IDs after a crash
+     * Property: bank.txid.blockSize (default 1000)
+     * @return The number of IDs per block
+     */
+    public static long getTransactionIdBlockSize() {
+        return getLong("bank.txid.blockSize", 1000);
+    }
+
+    /**
+     * How many transfers TransferService runs at the same time before submit() has to wait
+     * Property: bank.transfer.maxInFlight (default 1000)
+     * @return The maximum number of transfers in flight
+     */
+    public static int getTransferMaxInFlight() {
+        return (int) getLong("bank.transfer.maxInFlight", 1000);
+    }
+
+    /**
+     * The lowest level of message Log writes
+     * Property: bank.log.level, one of DEBUG, INFO, WARN, ERROR or OFF (default INFO)
+     * @return The log level
+     */
+    public static Log.Level getLogLevel() {
+        String value = System.getProperty("bank.log.level", "INFO");
+        try {
+            return Log.Level.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid value for bank.log.level: " + value + ". Using INFO");
+            return Log.Level.INFO;
+        }
+    }
+
+    /**
+     * File Log appends its messages to, empty to write them to the console
+     * Property: bank.log.file (default empty)
+     * @return The log file path, or an empty string for the console
+     */
+    public static String getLogFile() {
+        return System.getProperty("bank.log.file", "").trim();
+    }
+
+    /**
+     * How many messages Log can hold before the background writer catches up
+     * Messages logged while the buffer is full are dropped, never waited for
+     * Property: bank.log.bufferSize (default 8192, rounded down to a power of two)
+     * @return The buffer size in messages
+     */
+    public static int getLogBufferSize() {
+        return (int) getLong("bank.log.bufferSize", 8192);
+    }
+
+    /**
+     * Where Metrics writes its Prometheus text dump
+     * Property: bank.metrics.file (default <data folder>/metrics.prom)
+     * @return The metrics file path
+     */
+    public static String getMetricsFile() {
+        return System.getProperty("bank.metrics.file", dataFile("metrics.prom"));
+    }
+
+    /**
+     * How often Metrics writes the metrics file, 0 to only write it on request
+     * Property: bank.metrics.intervalMs (default 0)
+     * @return The dump interval in milliseconds
+     */
+    public static long getMetricsIntervalMillis() {
+        return getLong("bank.metrics.intervalMs", 0);
+    }
+
+    /**
+     * Helper method to read a numeric system property
+     * Falls back to the default if the property is missing or not a number
+     */
+    private static long getLong(String key, long defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + value + ". Using " + defaultValue);
+            return defaultValue;
+        }
+    }
+}
@@ -9,6 +9,11 @@
  */
 
 public class BankTransfer {
+    private static final Log LOG = Log.get(BankTransfer.class);
+
+    // Most one account may send in transfers per day (BatchTransfer applies it too)
+    public static final double DAILY_TRANSFER_LIMIT = 10000.00;
+    static final long DAILY_TRANSFER_LIMIT_CENTS = Money.toCents(DAILY_TRANSFER_LIMIT);
 
     /**
      * Transfers money between two bank accounts
@@ -20,24 +25,33 @@ public class BankTransfer {
     public static boolean transfer(BankAccount fromAccount, BankAccount toAccount, double amount) {
         // Input validation
         if (fromAccount == null || toAccount == null) {
-            System.out.println("Transfer failed: Invalid account(s).");
+            LOG.info("Transfer failed: Invalid account(s).");
             return false;
         }
 
         if (amount <= 0) {
-            System.out.println("Transfer failed: Amount must be greater than 0.");
+            LOG.info("Transfer failed: Amount must be greater than 0.");
             return false;
         }
 
         // Check if accounts are the same
         if (fromAccount.getAccountID().equals(toAccount.getAccountID())) {
-            System.out.println("Transfer failed: Cannot transfer to the same account.");
+            LOG.info("Transfer failed: Cannot transfer to the same account.");
             return false;
         }
 
         // Check if sender has enough balance
-        if (fromAccount.getBalance() < amount) {
-            System.out.println("Transfer failed: Insufficient funds.");
+        // (early answer only, BankAccount.transfer checks again while holding both account locks)
+        if (fromAccount.getBalanceCents() < Money.toCents(amount)) {
+            LOG.info("Transfer failed: Insufficient funds.");
+            return false;
+        }
+
+        // Check the daily transfer limit against what this account has already sent today
+        long sentTodayCents = AccountAggregates.getTransferredOutTodayCents(fromAccount.getAccountID());
+        if (sentTodayCents + Money.toCents(amount) > DAILY_TRANSFER_LIMIT_CENTS) {
+            LOG.info(() -> String.format("Transfer failed: Amount exceeds daily limit of $%.2f (already sent today: $%s)",
+                    DAILY_TRANSFER_LIMIT, Money.format(sentTodayCents)));
             return false;
         }
 
@@ -46,20 +60,21 @@ public class BankTransfer {
             boolean success = fromAccount.transfer(toAccount, amount);
 
             if (success) {
-                System.out.println("Transfer successful!");
-                System.out.printf("Transferred $%.2f from %s to %s%n",
-                        amount, fromAccount.getAccountID(), toAccount.getAccountID());
-                System.out.printf("New balance for %s: $%.2f%n",
-                        fromAccount.getAccountID(), fromAccount.getBalance());
-                System.out.printf("New balance for %s: $%.2f%n",
-                        toAccount.getAccountID(), toAccount.getBalance());
+                // One message, only formatted if INFO is enabled
+                LOG.info(() -> String.format("Transfer successful!%n"
+                                + "Transferred $%.2f from %s to %s%n"
+                                + "New balance for %s: $%.2f%n"
+                                + "New balance for %s: $%.2f",
+                        amount, fromAccount.getAccountID(), toAccount.getAccountID(),
+                        fromAccount.getAccountID(), fromAccount.getBalance(),
+                        toAccount.getAccountID(), toAccount.getBalance()));
                 return true;
             } else {
-                System.out.println("Transfer failed: An error occurred during the transfer.");
+                LOG.info("Transfer failed: An error occurred during the transfer.");
                 return false;
             }
         } catch (Exception e) {
-            System.out.println("Transfer failed: " + e.getMessage());
+            LOG.error("Transfer failed: " + e.getMessage(), e);
             return false;
         }
     }
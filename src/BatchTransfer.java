@@ -0,0 +1,220 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * BatchTransfer settles a whole list of transfers at once, for payroll-style jobs
+ * (one source account paying many destinations).
+ *
+ * Calling BankAccount.transfer for each payment saves both accounts and logs one transaction
+ * per call. A batch instead:
+ * 1. checks every transfer (accounts exist, amount above 0, not the same account),
+ * 2. locks every account in the batch once (AccountLocks.lockAll) and works through the
+ *    transfers in order against running balances, so a payment can use money received
+ *    earlier in the same batch; each source account's transfers, together with what it has
+ *    already sent today, must stay within BankTransfer.DAILY_TRANSFER_LIMIT,
+ * 3. applies the net change to each account once and, still holding the locks, saves all
+ *    changed accounts with one commit (AccountStore.commitBatch), so no other thread can
+ *    spend or save the new balances before the batch itself is saved (as BankAccount.transfer
+ *    saves both accounts under both locks),
+ * 4. logs all TRANSFER transactions with one append (TransactionLogger.logAll).
+ *
+ * Modes:
+ * - ALL_OR_NOTHING: if any transfer fails its checks or runs out of money, nothing is applied
+ * - BEST_EFFORT: failing transfers are skipped and the rest are applied
+ */
+public class BatchTransfer {
+    private static final Log LOG = Log.get(BatchTransfer.class);
+
+    public enum Mode { ALL_OR_NOTHING, BEST_EFFORT }
+
+    /**
+     * One transfer in a batch
+     */
+    public static class Item {
+        private final String fromAccountID;
+        private final String toAccountID;
+        private final long amountCents;
+
+        public Item(String fromAccountID, String toAccountID, double amount) {
+            this.fromAccountID = fromAccountID;
+            this.toAccountID = toAccountID;
+            this.amountCents = Money.toCents(amount);
+        }
+
+        public String getFromAccountID() { return fromAccountID; }
+        public String getToAccountID() { return toAccountID; }
+        public long getAmountCents() { return amountCents; }
+
+        @Override
+        public String toString() {
+            return fromAccountID + " -> " + toAccountID + " $" + Money.format(amountCents);
+        }
+    }
+
+    /**
+     * What happened to a batch: which transfers were applied and why the others were not
+     */
+    public static class Result {
+        private final List<Item> applied = new ArrayList<>();
+        private final Map<Item, String> rejected = new LinkedHashMap<>();
+
+        public List<Item> getApplied() { return applied; }
+        public Map<Item, String> getRejected() { return rejected; }
+
+        /**
+         * @return true if every transfer in the batch was applied
+         */
+        public boolean isComplete() {
+            return rejected.isEmpty();
+        }
+    }
+
+    /**
+     * Checks and applies a batch of transfers
+     * @param items The transfers, applied in list order
+     * @param mode ALL_OR_NOTHING or BEST_EFFORT
+     * @return Which transfers were applied and which were rejected (with the reason)
+     */
+    public static Result execute(List<Item> items, Mode mode) {
+        Result result = new Result();
+        if (!BankAccount.logAccepting("Batch transfer")) {
+            rejectRest(result, items, "The transaction log is not accepting records");
+            return result;
+        }
+
+        // Step 1: checks that do not depend on balances
+        Map<String, BankAccount> accounts = new HashMap<>();
+        List<Item> valid = new ArrayList<>();
+        for (Item item : items) {
+            String problem = check(item, accounts);
+            if (problem == null) {
+                valid.add(item);
+            } else {
+                result.rejected.put(item, problem);
+            }
+        }
+        if (mode == Mode.ALL_OR_NOTHING && !result.rejected.isEmpty()) {
+            rejectRest(result, valid, "Batch cancelled: another transfer in the batch failed");
+            return result;
+        }
+
+        // Step 2 and 3: settle the batch against running balances while holding every account's lock
+        Set<String> accountIDs = new LinkedHashSet<>();
+        for (Item item : valid) {
+            accountIDs.add(item.fromAccountID);
+            accountIDs.add(item.toAccountID);
+        }
+        Map<String, Long> netChange = new LinkedHashMap<>();
+        List<Item> settled = new ArrayList<>();
+        List<BankAccount> changed = new ArrayList<>();
+        AccountLocks.lockAll(accountIDs);
+        try {
+            Map<String, Long> balances = new HashMap<>();
+            for (String accountID : accountIDs) {
+                balances.put(accountID, accounts.get(accountID).getBalanceCents());
+            }
+            // What each source account has sent today, including this batch so far
+            Map<String, Long> sentToday = new HashMap<>();
+            for (Item item : valid) {
+                long fromBalance = balances.get(item.fromAccountID);
+                long sent = sentToday.computeIfAbsent(item.fromAccountID, AccountAggregates::getTransferredOutTodayCents);
+                String problem = null;
+                if (fromBalance < item.amountCents) {
+                    problem = "Insufficient funds";
+                } else if (sent + item.amountCents > BankTransfer.DAILY_TRANSFER_LIMIT_CENTS) {
+                    problem = "Daily transfer limit exceeded";
+                }
+                if (problem != null) {
+                    result.rejected.put(item, problem);
+                    if (mode == Mode.ALL_OR_NOTHING) {
+                        break;
+                    }
+                    continue;
+                }
+                sentToday.put(item.fromAccountID, sent + item.amountCents);
+                balances.put(item.fromAccountID, fromBalance - item.amountCents);
+                balances.merge(item.toAccountID, item.amountCents, Long::sum);
+                netChange.merge(item.fromAccountID, -item.amountCents, Long::sum);
+                netChange.merge(item.toAccountID, item.amountCents, Long::sum);
+                settled.add(item);
+            }
+
+            if (mode == Mode.ALL_OR_NOTHING && !result.rejected.isEmpty()) {
+                settled.clear();
+                netChange.clear();
+            }
+            for (Map.Entry<String, Long> change : netChange.entrySet()) {
+                if (change.getValue() != 0) {
+                    BankAccount account = accounts.get(change.getKey());
+                    account.creditCents(change.getValue());
+                    changed.add(account);
+                }
+            }
+            // Step 3 (continued): one commit for the accounts, before anyone else can see the new balances
+            if (!changed.isEmpty() && !AccountStore.commitBatch(changed)) {
+                LOG.warn("Batch transfer was applied but the accounts could not be saved yet");
+            }
+        } finally {
+            AccountLocks.unlockAll(accountIDs);
+        }
+
+        if (mode == Mode.ALL_OR_NOTHING && !result.rejected.isEmpty()) {
+            rejectRest(result, valid, "Batch cancelled: another transfer in the batch failed");
+            return result;
+        }
+
+        // Step 4: one append for the transactions
+        List<Transaction> transactions = new ArrayList<>(settled.size());
+        for (Item item : settled) {
+            transactions.add(new Transaction(
+                    item.fromAccountID,                 // source account
+                    item.toAccountID,                   // destination account
+                    Money.toDouble(item.amountCents),   // amount
+                    "TRANSFER",                         // transaction type
+                    "Batch transfer"                    // note
+            ));
+        }
+        if (!TransactionLogger.logAll(transactions)) {
+            LOG.error("Batch transfer was applied but its transactions could not be written to the log");
+        }
+        result.applied.addAll(settled);
+        return result;
+    }
+
+    /**
+     * Checks one transfer before any balances are looked at
+     * Looks up both accounts and remembers them for the rest of the batch
+     * @return null if the transfer looks fine, otherwise the reason it cannot be done
+     */
+    private static String check(Item item, Map<String, BankAccount> accounts) {
+        if (item.amountCents <= 0) {
+            return "Amount must be greater than 0";
+        }
+        if (item.fromAccountID == null || item.toAccountID == null) {
+            return "Invalid account(s)";
+        }
+        if (item.fromAccountID.equals(item.toAccountID)) {
+            return "Cannot transfer to the same account";
+        }
+        BankAccount from = accounts.computeIfAbsent(item.fromAccountID, AccountStore::getAccount);
+        BankAccount to = accounts.computeIfAbsent(item.toAccountID, AccountStore::getAccount);
+        if (from == null || to == null) {
+            return "Account not found";
+        }
+        return null;
+    }
+
+    /**
+     * Marks every transfer that has no result yet as rejected
+     */
+    private static void rejectRest(Result result, List<Item> items, String reason) {
+        for (Item item : items) {
+            result.rejected.putIfAbsent(item, reason);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+/*
+ * Test class for BatchTransfer, BankTransfer and TransferService
+ * Checks that an ALL_OR_NOTHING batch changes nothing when one transfer fails, that BEST_EFFORT
+ * applies the rest, that the daily limit holds on every path, and that money is never created
+ * or lost when many transfers run at once.
+ * Runs in its own temporary data folder, so the real data/ is never touched.
+ * Prints PASS or FAIL for every check and exits with status 1 if any check failed
+ */
+
+public class BatchTransferTest {
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        // Must be set before any bank class builds its file paths
+        File dataDir = Files.createTempDirectory("batch-test").toFile();
+        System.setProperty("bank.data.dir", dataDir.getPath());
+        Log.setLevel(Log.Level.WARN);
+
+        System.out.println("=== Starting Batch Transfer Test ===\n");
+
+        BankAccount payer = BankAccount.createChecking("payer", 2001, 1000.00);
+        BankAccount alice = BankAccount.createChecking("alice", 2002, 0.00);
+        BankAccount bob = BankAccount.createChecking("bob", 2003, 0.00);
+
+        // Test 1: ALL_OR_NOTHING rolls back the whole batch
+        // The third payment is more than is left, so the first two must not be applied either
+        System.out.println("Test 1: ALL_OR_NOTHING rollback");
+        BatchTransfer.Result result = BatchTransfer.execute(List.of(
+                item(payer, alice, 400.00),
+                item(payer, bob, 400.00),
+                item(payer, alice, 400.00)), BatchTransfer.Mode.ALL_OR_NOTHING);
+        check("nothing is applied", result.getApplied().isEmpty() && !result.isComplete());
+        check("every transfer is rejected", result.getRejected().size() == 3);
+        check("the failing transfer says why", result.getRejected().containsValue("Insufficient funds"));
+        check("balances are unchanged in memory", payer.getBalanceCents() == 100000
+                && alice.getBalanceCents() == 0 && bob.getBalanceCents() == 0);
+        check("balances are unchanged in the store", AccountStore.getAccount(payer.getAccountID()).getBalanceCents() == 100000);
+        check("no transactions are logged", TransactionHistory.getAccountTransactions(payer.getAccountID()).isEmpty());
+
+        result = BatchTransfer.execute(List.of(
+                item(payer, alice, 10.00),
+                new BatchTransfer.Item(payer.getAccountID(), "no-such-account", 10.00)), BatchTransfer.Mode.ALL_OR_NOTHING);
+        check("a transfer to a missing account cancels the batch before any balance is read",
+                result.getApplied().isEmpty() && payer.getBalanceCents() == 100000);
+        System.out.println();
+
+        // Test 2: BEST_EFFORT skips only the failing transfers
+        // Alice pays Bob with money she receives earlier in the same batch
+        System.out.println("Test 2: BEST_EFFORT and running balances");
+        result = BatchTransfer.execute(List.of(
+                item(payer, alice, 300.00),
+                item(alice, bob, 250.00),
+                item(alice, bob, 100.00),
+                item(payer, payer, 1.00)), BatchTransfer.Mode.BEST_EFFORT);
+        check("two transfers are applied", result.getApplied().size() == 2);
+        check("overdrawing transfer and transfer to self are rejected", result.getRejected().size() == 2);
+        check("balances follow the applied transfers", payer.getBalanceCents() == 70000
+                && alice.getBalanceCents() == 5000 && bob.getBalanceCents() == 25000);
+        check("one transaction is logged per applied transfer",
+                TransactionHistory.getAccountTransactions(alice.getAccountID()).size() == 2);
+        System.out.println();
+
+        // Test 3: The daily transfer limit holds for single and batch transfers
+        System.out.println("Test 3: Daily transfer limit");
+        BankAccount rich = BankAccount.createChecking("rich", 2004, 50000.00);
+        check("a transfer up to the limit goes through",
+                BankTransfer.transfer(rich, bob, BankTransfer.DAILY_TRANSFER_LIMIT - 100.00));
+        check("a transfer over the limit is refused", !BankTransfer.transfer(rich, bob, 200.00));
+        result = BatchTransfer.execute(List.of(item(rich, alice, 60.00), item(rich, alice, 60.00)),
+                BatchTransfer.Mode.BEST_EFFORT);
+        check("a batch counts what was sent today and its own earlier transfers",
+                result.getApplied().size() == 1 && result.getRejected().containsValue("Daily transfer limit exceeded"));
+        try (TransferService service = new TransferService()) {
+            check("TransferService applies the limit too",
+                    !service.submit(rich.getAccountID(), alice.getAccountID(), 50.00).get());
+        }
+        check("sent today is exactly the limit minus what is left",
+                AccountAggregates.getTransferredOutTodayCents(rich.getAccountID())
+                        == Money.toCents(BankTransfer.DAILY_TRANSFER_LIMIT - 40.00));
+        System.out.println();
+
+        // Test 4: Money is conserved under concurrent transfers
+        // Single transfers through TransferService and batches run at the same time over the same accounts
+        System.out.println("Test 4: Concurrent transfers conserve money");
+        List<BankAccount> ring = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ring.add(BankAccount.createChecking("ring" + i, 3000 + i, 100.00));
+        }
+        Random random = new Random(7);
+        List<CompletableFuture<Boolean>> submitted = new ArrayList<>();
+        Thread batches = new Thread(() -> {
+            Random batchRandom = new Random(8);
+            for (int b = 0; b < 50; b++) {
+                List<BatchTransfer.Item> items = new ArrayList<>();
+                for (int i = 0; i < 5; i++) {
+                    items.add(item(ring.get(batchRandom.nextInt(10)), ring.get(batchRandom.nextInt(10)), 7.00));
+                }
+                BatchTransfer.execute(items, b % 2 == 0 ? BatchTransfer.Mode.ALL_OR_NOTHING : BatchTransfer.Mode.BEST_EFFORT);
+            }
+        });
+        batches.start();
+        try (TransferService service = new TransferService()) {
+            for (int i = 0; i < 1000; i++) {
+                BankAccount from = ring.get(random.nextInt(10));
+                BankAccount to = ring.get(random.nextInt(10));
+                submitted.add(service.submit(from.getAccountID(), to.getAccountID(), 1 + random.nextInt(20)));
+            }
+            for (CompletableFuture<Boolean> future : submitted) {
+                future.get();
+            }
+        }
+        batches.join();
+        long total = 0;
+        boolean noneNegative = true;
+        for (BankAccount account : ring) {
+            total += account.getBalanceCents();
+            noneNegative &= account.getBalanceCents() >= 0;
+        }
+        check("total is still $1000.00", total == 100000);
+        check("no account went below zero", noneNegative);
+        System.out.println();
+
+        System.out.println("=== Batch Transfer Test Complete: " + (failures == 0 ? "all checks passed" : failures + " check(s) failed") + " ===");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static BatchTransfer.Item item(BankAccount from, BankAccount to, double amount) {
+        return new BatchTransfer.Item(from.getAccountID(), to.getAccountID(), amount);
+    }
+
+    private static void check(String name, boolean passed) {
+        System.out.println((passed ? "PASS  " : "FAIL  ") + name);
+        if (!passed) {
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,405 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BinaryAccountFile stores accounts in a binary file where every account takes the same
+ * number of bytes, as an alternative to bank_accounts.csv.
+ *
+ * Because CSV rows have different widths, changing one balance in the CSV means rewriting the
+ * whole file. Here every account has a fixed slot, so a balance change is a single 8-byte
+ * write at a known position, and loading is a straight pass over the slots with no text parsing.
+ *
+ * Two files are used:
+ *   bank_accounts.bin  a 32-byte header followed by one 32-byte record per account slot,
+ *                      memory-mapped with FileChannel.map
+ *   bank_accounts.ids  the account ID strings, appended one after another
+ *                      (2-byte length followed by the UTF-8 bytes)
+ *
+ * Header:  magic (int) | version (int) | slot count (int) | unused
+ * Record:  slot (int) | userID (int) | balance in cents (long) | ID offset in the .ids file (long)
+ *          | type (byte, 0 = CHECKING, 1 = SAVING) | flags (byte, 1 = in use) | unused
+ *
+ * A new account is written in this order: ID string, record, then the slot count in the
+ * header. If the program stops in between, the half-written account is simply not counted.
+ * Deleting an account clears its "in use" flag, the slot is not reused.
+ *
+ * Run "java BinaryAccountFile import" to build the binary files from bank_accounts.csv,
+ * or "java BinaryAccountFile export" to write bank_accounts.csv back from them.
+ */
+public class BinaryAccountFile implements AutoCloseable {
+    private static final int MAGIC = 0x42414354; // "BACT"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 32;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Byte positions inside the header
+    private static final int HEADER_COUNT = 8;
+
+    // Byte positions inside a record
+    private static final int SLOT = 0;
+    private static final int USER_ID = 4;
+    private static final int BALANCE = 8;
+    private static final int ID_OFFSET = 16;
+    private static final int TYPE = 24;
+    private static final int FLAGS = 25;
+
+    private static final byte TYPE_CHECKING = 0;
+    private static final byte TYPE_SAVING = 1;
+    private static final byte FLAG_IN_USE = 1;
+
+    private final FileChannel records;
+    private final FileChannel ids;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int count;
+    // Slot of every account in use, keyed by account ID
+    private final StringIntMap slots = new StringIntMap();
+
+    private BinaryAccountFile(FileChannel records, FileChannel ids) throws IOException {
+        this.records = records;
+        this.ids = ids;
+        if (records.size() < HEADER_SIZE) {
+            map(INITIAL_CAPACITY);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(HEADER_COUNT, 0);
+        } else {
+            map((int) ((records.size() - HEADER_SIZE) / RECORD_SIZE));
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a binary accounts file (version " + VERSION + ")");
+            }
+            count = buffer.getInt(HEADER_COUNT);
+        }
+    }
+
+    /**
+     * Opens (or creates) the binary accounts files in the data folder
+     * @return The opened file
+     * @throws IOException If the files cannot be opened or are not binary account files
+     */
+    public static BinaryAccountFile open() throws IOException {
+        return open(Paths.get(BankConfig.dataFile("bank_accounts.bin")), Paths.get(BankConfig.dataFile("bank_accounts.ids")));
+    }
+
+    /**
+     * Opens (or creates) a pair of binary accounts files
+     * @param recordsPath The fixed-width records file
+     * @param idsPath The account ID strings file
+     * @return The opened file
+     * @throws IOException If the files cannot be opened or are not binary account files
+     */
+    public static BinaryAccountFile open(Path recordsPath, Path idsPath) throws IOException {
+        Path parent = recordsPath.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FileChannel records = FileChannel.open(recordsPath, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel ids = FileChannel.open(idsPath, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new BinaryAccountFile(records, ids);
+        } catch (IOException e) {
+            records.close();
+            ids.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads every account in use
+     * Also remembers the slot of each account, so later updates can go straight to it
+     * @return List of all accounts in slot order
+     * @throws IOException If the ID strings cannot be read
+     */
+    public synchronized List<BankAccount> loadAll() throws IOException {
+        List<BankAccount> accounts = new ArrayList<>(count);
+        slots.clear();
+        MappedByteBuffer names = ids.size() == 0 ? null : ids.map(FileChannel.MapMode.READ_ONLY, 0, ids.size());
+        for (int slot = 0; slot < count; slot++) {
+            int at = position(slot);
+            if (buffer.get(at + FLAGS) != FLAG_IN_USE) {
+                continue;
+            }
+            String accountID = readId(names, buffer.getLong(at + ID_OFFSET));
+            String type = buffer.get(at + TYPE) == TYPE_SAVING ? "SAVING" : "CHECKING";
+            accounts.add(BankAccountCSV.createAccount(accountID, buffer.getInt(at + USER_ID),
+                    buffer.getLong(at + BALANCE), type));
+            slots.put(accountID, slot);
+        }
+        return accounts;
+    }
+
+    /**
+     * Reads one account straight from its slot
+     * Only accounts seen by loadAll() or saved since are found, since the slot map is built there
+     * @param accountID The account to read
+     * @return The account, or null if it is not in the file
+     */
+    public synchronized BankAccount find(String accountID) {
+        int slot = slots.get(accountID);
+        if (slot < 0) {
+            return null;
+        }
+        int at = position(slot);
+        String type = buffer.get(at + TYPE) == TYPE_SAVING ? "SAVING" : "CHECKING";
+        return BankAccountCSV.createAccount(accountID, buffer.getInt(at + USER_ID), buffer.getLong(at + BALANCE), type);
+    }
+
+    /**
+     * Saves an account: a known account with the same owner and type only has its balance
+     * written (8 bytes), a new account gets the next free slot
+     * @param account The account to save
+     * @return true if successful, false otherwise
+     */
+    public synchronized boolean put(BankAccount account) {
+        byte type;
+        if (account.getAccountType().equals("SAVING")) {
+            type = TYPE_SAVING;
+        } else if (account.getAccountType().equals("CHECKING")) {
+            type = TYPE_CHECKING;
+        } else {
+            System.err.println("Error: Unknown account type for binary accounts file: " + account.getAccountType());
+            return false;
+        }
+
+        try {
+            int slot = slots.get(account.getAccountID());
+            if (slot >= 0) {
+                int at = position(slot);
+                if (buffer.getInt(at + USER_ID) == account.getUserID() && buffer.get(at + TYPE) == type) {
+                    buffer.putLong(at + BALANCE, account.getBalanceCents());
+                    forceIfEnabled();
+                    return true;
+                }
+                // Owner or type changed, which never happens in normal use; give it a new slot
+                buffer.put(at + FLAGS, (byte) 0);
+            }
+            append(account, type);
+            forceIfEnabled();
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error writing binary accounts file: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Writes only the balance of a known account
+     * @param accountID The account to update
+     * @param balanceCents The new balance in cents
+     * @return true if successful, false if the account is not in the file
+     */
+    public synchronized boolean updateBalance(String accountID, long balanceCents) {
+        int slot = slots.get(accountID);
+        if (slot < 0) {
+            return false;
+        }
+        buffer.putLong(position(slot) + BALANCE, balanceCents);
+        forceIfEnabled();
+        return true;
+    }
+
+    /**
+     * Marks an account's slot as no longer in use
+     * @param accountID The account to delete
+     * @return true if the account existed, false otherwise
+     */
+    public synchronized boolean delete(String accountID) {
+        int slot = slots.remove(accountID);
+        if (slot < 0) {
+            return false;
+        }
+        buffer.put(position(slot) + FLAGS, (byte) 0);
+        forceIfEnabled();
+        return true;
+    }
+
+    /**
+     * Forces every change made so far to the disk
+     */
+    public synchronized void force() {
+        buffer.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        records.close();
+        ids.close();
+    }
+
+    private void append(BankAccount account, int type) throws IOException {
+        long idOffset = writeId(account.getAccountID());
+        if (count == capacity) {
+            map(capacity * 2);
+        }
+        int slot = count;
+        int at = position(slot);
+        buffer.putInt(at + SLOT, slot);
+        buffer.putInt(at + USER_ID, account.getUserID());
+        buffer.putLong(at + BALANCE, account.getBalanceCents());
+        buffer.putLong(at + ID_OFFSET, idOffset);
+        buffer.put(at + TYPE, (byte) type);
+        buffer.put(at + FLAGS, FLAG_IN_USE);
+        // Counting the slot last means a half-written record is never read back
+        count++;
+        buffer.putInt(HEADER_COUNT, count);
+        slots.put(account.getAccountID(), slot);
+    }
+
+    private long writeId(String accountID) throws IOException {
+        byte[] bytes = accountID.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IOException("Account ID is too long");
+        }
+        ByteBuffer entry = ByteBuffer.allocate(2 + bytes.length);
+        entry.putShort((short) bytes.length).put(bytes).flip();
+        long offset = ids.size();
+        while (entry.hasRemaining()) {
+            ids.write(entry, offset + entry.position());
+        }
+        return offset;
+    }
+
+    private static String readId(MappedByteBuffer names, long offset) throws IOException {
+        if (names == null || offset < 0 || offset + 2 > names.limit()) {
+            throw new IOException("Account ID offset " + offset + " is outside the IDs file");
+        }
+        int length = names.getShort((int) offset);
+        byte[] bytes = new byte[length];
+        names.get((int) offset + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Maps the header and room for the given number of slots, growing the file if needed
+     */
+    private void map(int slotCapacity) throws IOException {
+        capacity = Math.max(slotCapacity, INITIAL_CAPACITY);
+        buffer = records.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+    }
+
+    private static int position(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    private void forceIfEnabled() {
+        if (BankConfig.isBinaryFsyncEnabled()) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Builds the binary accounts files from bank_accounts.csv and its journal
+     * Accounts already in the binary files are updated, new ones are added
+     * The import works on copies (.tmp) that replace the real files only once every account
+     * is written, so a failed import never leaves a half-filled or empty binary file behind
+     * (BinaryAccountRepository would take an empty one for a store with no accounts)
+     * @return The number of accounts imported, or -1 if it failed
+     */
+    public static int importCSV() {
+        // Go through the CSV repository so changes still only in the journal are included
+        List<BankAccount> accounts = new CsvAccountRepository().loadAll();
+        Path recordsPath = Paths.get(BankConfig.dataFile("bank_accounts.bin"));
+        Path idsPath = Paths.get(BankConfig.dataFile("bank_accounts.ids"));
+        Path recordsTemp = recordsPath.resolveSibling(recordsPath.getFileName() + ".tmp");
+        Path idsTemp = idsPath.resolveSibling(idsPath.getFileName() + ".tmp");
+        try {
+            copyForImport(recordsPath, recordsTemp);
+            copyForImport(idsPath, idsTemp);
+            int imported = 0;
+            try (BinaryAccountFile file = open(recordsTemp, idsTemp)) {
+                file.loadAll();
+                for (BankAccount account : accounts) {
+                    if (!file.put(account)) {
+                        throw new IOException("Could not write account " + account.getAccountID());
+                    }
+                    imported++;
+                }
+                file.force();
+            }
+            // The ID strings only ever grow, so the old records still read fine against the new
+            // .ids file; the records file goes last, and until it is there the next start imports again
+            Files.move(idsTemp, idsPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(recordsTemp, recordsPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return imported;
+        } catch (IOException e) {
+            System.err.println("Error importing accounts into binary file: " + e.getMessage());
+            try {
+                Files.deleteIfExists(recordsTemp);
+                Files.deleteIfExists(idsTemp);
+            } catch (IOException ignored) {
+                // Left for the next import, which starts its copies over
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Starts an import copy from the current file, or from nothing if there is none yet
+     */
+    private static void copyForImport(Path file, Path temp) throws IOException {
+        if (Files.exists(file)) {
+            Files.copy(file, temp, StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes bank_accounts.csv from the binary accounts files
+     * @return The number of accounts exported, or -1 if it failed
+     */
+    public static int exportCSV() {
+        // Never replace the CSV with an empty file just because the binary files are missing
+        if (!Files.exists(Paths.get(BankConfig.dataFile("bank_accounts.bin")))) {
+            System.err.println("Error: No binary accounts file to export from");
+            return -1;
+        }
+        try (BinaryAccountFile file = open()) {
+            List<String> lines = new ArrayList<>();
+            for (BankAccount account : file.loadAll()) {
+                lines.add(BankAccountCSV.toCSVLine(account));
+            }
+            if (!BankAccountCSV.writeAccounts(lines)) {
+                return -1;
+            }
+            // The new CSV holds every account, so an old journal would replay stale changes over it
+            AccountJournal.clear();
+            return lines.size();
+        } catch (IOException e) {
+            System.err.println("Error exporting accounts from binary file: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Converts between bank_accounts.csv and the binary accounts files
+     * Usage: java BinaryAccountFile import|export
+     */
+    public static void main(String[] args) {
+        if (args.length != 1 || !(args[0].equals("import") || args[0].equals("export"))) {
+            System.err.println("Usage: java BinaryAccountFile import|export");
+            System.exit(1);
+        }
+        long start = System.currentTimeMillis();
+        int done = args[0].equals("import") ? importCSV() : exportCSV();
+        if (done < 0) {
+            System.exit(1);
+        }
+        System.out.println((args[0].equals("import") ? "Imported " : "Exported ") + done
+                + " accounts in " + (System.currentTimeMillis() - start) + " ms");
+    }
+}
@@ -0,0 +1,93 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * BinaryAccountRepository keeps accounts in the fixed-width BinaryAccountFile.
+ *
+ * Every change goes straight to the account's slot in the memory-mapped file (a balance
+ * change is one 8-byte write), so there is no journal and no snapshot to rewrite.
+ * A checkpoint only forces the mapped pages to the disk.
+ *
+ * The first time it is used on a data folder that only has bank_accounts.csv,
+ * the CSV is imported into the binary file. If that import fails, no binary file is created
+ * and the import is tried again on the next start.
+ */
+public class BinaryAccountRepository implements AccountRepository {
+    private BinaryAccountFile file;
+
+    @Override
+    public synchronized List<BankAccount> loadAll() {
+        try {
+            boolean imported = false;
+            if (file == null) {
+                if (!new File(BankConfig.dataFile("bank_accounts.bin")).exists()) {
+                    if (BinaryAccountFile.importCSV() < 0) {
+                        // Opening now would create an empty file and the next start would
+                        // trust it, so stay closed (changes are refused) and import again next time
+                        System.err.println("Error: Could not import bank_accounts.csv, the binary accounts file was not created");
+                        return new ArrayList<>();
+                    }
+                    imported = true;
+                }
+                file = BinaryAccountFile.open();
+            }
+            List<BankAccount> accounts = file.loadAll();
+            if (imported) {
+                System.out.println("Imported " + accounts.size() + " accounts into the binary accounts file");
+            }
+            return accounts;
+        } catch (IOException e) {
+            System.err.println("Error loading binary accounts file: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public BankAccount find(String accountID) {
+        return file == null ? null : file.find(accountID);
+    }
+
+    @Override
+    public boolean needsAllAccounts() {
+        return false;
+    }
+
+    @Override
+    public boolean save(BankAccount account) {
+        return file != null && file.put(account);
+    }
+
+    @Override
+    public BooleanSupplier stage(BankAccount account) {
+        // Writing a record is a copy into the mapped file, there is no slow part to put off
+        boolean saved = save(account);
+        return () -> saved;
+    }
+
+    @Override
+    public boolean saveAll(Collection<BankAccount> accounts) {
+        boolean saved = true;
+        for (BankAccount account : accounts) {
+            saved &= save(account);
+        }
+        return saved;
+    }
+
+    @Override
+    public boolean delete(String accountID) {
+        return file != null && file.delete(accountID);
+    }
+
+    @Override
+    public boolean checkpoint(Supplier<Collection<BankAccount>> allAccounts) {
+        if (file != null) {
+            file.force();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,109 @@
+import java.nio.ByteBuffer;
+
+/**
+ * BloomFilter is a fixed-size set of bits that answers "might this value have been added?".
+ *
+ * mightContain never says no for a value that was added, but it can say yes for a value
+ * that was not (a false positive). With the default 65536 bits and 4 hashes, a filter holding
+ * 5,000 values gives a false positive for roughly 1 lookup in 400.
+ * LogSegment uses one per log segment to record which accounts appear in it.
+ */
+public class BloomFilter {
+    private final long[] bits;
+    private final int hashes;
+    private final int mask;
+
+    /**
+     * Creates an empty filter
+     * @param bitCount The number of bits, rounded up to a power of two (at least 64)
+     * @param hashes How many bits each value sets
+     */
+    public BloomFilter(int bitCount, int hashes) {
+        int size = bitCount <= 64 ? 64 : Integer.highestOneBit((bitCount - 1) << 1);
+        this.bits = new long[size / 64];
+        this.hashes = Math.max(1, hashes);
+        this.mask = size - 1;
+    }
+
+    private BloomFilter(long[] bits, int hashes) {
+        this.bits = bits;
+        this.hashes = hashes;
+        this.mask = bits.length * 64 - 1;
+    }
+
+    /**
+     * Rebuilds a filter saved with toBytes()
+     * @param data The saved bits
+     * @param hashes The number of hashes the filter was created with
+     * @return The filter, or null if the data is not a valid filter
+     */
+    public static BloomFilter fromBytes(byte[] data, int hashes) {
+        int words = data.length / 8;
+        if (words == 0 || data.length % 8 != 0 || Integer.bitCount(words) != 1 || hashes < 1) {
+            return null;
+        }
+        long[] bits = new long[words];
+        ByteBuffer.wrap(data).asLongBuffer().get(bits);
+        return new BloomFilter(bits, hashes);
+    }
+
+    /**
+     * Adds a value to the filter
+     * @param value The value to add
+     */
+    public void add(String value) {
+        long hash = mix(value.hashCode());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (h1 + i * h2) & mask;
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Checks whether a value might have been added
+     * @param value The value to look for
+     * @return false if the value was definitely never added, true if it might have been
+     */
+    public boolean mightContain(String value) {
+        long hash = mix(value.hashCode());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (h1 + i * h2) & mask;
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getHashes() {
+        return hashes;
+    }
+
+    /**
+     * Saves the bits of the filter
+     * @return The bits as bytes, readable by fromBytes()
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(bits.length * 8);
+        buffer.asLongBuffer().put(bits);
+        return buffer.array();
+    }
+
+    /**
+     * Spreads a 32-bit hash over 64 bits, so both halves can be used as separate hashes
+     * (the finalizer step of MurmurHash3)
+     */
+    private static long mix(int hashCode) {
+        long h = hashCode * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
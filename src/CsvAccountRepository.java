@@ -0,0 +1,115 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * CsvAccountRepository keeps accounts in bank_accounts.csv plus the AccountJournal.
+ *
+ * Every change is appended to the journal right away (one short line, group committed, see
+ * AccountJournal). A checkpoint folds
+ * the journal into a fresh CSV snapshot, since CSV rows have no fixed width and the file
+ * has to be rewritten in one pass.
+ */
+public class CsvAccountRepository implements AccountRepository {
+
+    @Override
+    public List<BankAccount> loadAll() {
+        long start = System.nanoTime();
+        Map<String, BankAccount> recovered = new LinkedHashMap<>();
+        for (BankAccount account : BankAccountCSV.loadAccounts()) {
+            recovered.put(account.getAccountID(), account);
+        }
+        // Recover updates made after the last snapshot, then fold them into a new one
+        if (AccountJournal.replay(recovered) > 0) {
+            List<String> lines = new ArrayList<>();
+            for (BankAccount account : recovered.values()) {
+                lines.add(BankAccountCSV.toCSVLine(account));
+            }
+            if (BankAccountCSV.writeAccounts(lines)) {
+                AccountJournal.clear();
+            }
+        }
+        Metrics.CSV_READ.recordSince(start);
+        return new ArrayList<>(recovered.values());
+    }
+
+    /**
+     * Reads the snapshot and journal and picks out one account
+     * Slow, but AccountStore never needs it with this backend since it keeps every account
+     */
+    @Override
+    public BankAccount find(String accountID) {
+        Map<String, BankAccount> stored = new LinkedHashMap<>();
+        for (BankAccount account : BankAccountCSV.loadAccounts()) {
+            stored.put(account.getAccountID(), account);
+        }
+        AccountJournal.replay(stored);
+        return stored.get(accountID);
+    }
+
+    @Override
+    public boolean needsAllAccounts() {
+        return true; // checkpoint() rewrites the whole snapshot
+    }
+
+    @Override
+    public boolean save(BankAccount account) {
+        long start = System.nanoTime();
+        boolean saved = AccountJournal.appendPut(account);
+        Metrics.CSV_WRITE.recordSince(start);
+        return saved;
+    }
+
+    @Override
+    public BooleanSupplier stage(BankAccount account) {
+        AccountJournal.Entry entry = AccountJournal.enqueuePut(account);
+        return () -> {
+            long start = System.nanoTime();
+            boolean saved = AccountJournal.await(entry);
+            Metrics.CSV_WRITE.recordSince(start);
+            return saved;
+        };
+    }
+
+    @Override
+    public boolean saveAll(Collection<BankAccount> accounts) {
+        return true; // Nothing to journal, the next checkpoint writes them all in one snapshot
+    }
+
+    @Override
+    public boolean delete(String accountID) {
+        long start = System.nanoTime();
+        boolean deleted = AccountJournal.appendDelete(accountID);
+        Metrics.CSV_WRITE.recordSince(start);
+        return deleted;
+    }
+
+    @Override
+    public boolean checkpoint(Supplier<Collection<BankAccount>> allAccounts) {
+        // Collect the accounts, copy the rows and start a new journal together, so every
+        // record in the rotated journal is already covered by this snapshot
+        List<String> lines = new ArrayList<>();
+        AccountJournal.Entry rotation;
+        synchronized (AccountJournal.class) {
+            for (BankAccount account : allAccounts.get()) {
+                lines.add(BankAccountCSV.toCSVLine(account));
+            }
+            rotation = AccountJournal.rotate();
+        }
+        // Writes the records queued before the rotation, then moves the journal aside
+        AccountJournal.await(rotation);
+
+        long start = System.nanoTime();
+        boolean written = BankAccountCSV.writeAccounts(lines);
+        Metrics.CSV_WRITE.recordSince(start);
+        if (!written) {
+            return false;
+        }
+        AccountJournal.discardRotated();
+        return true;
+    }
+}
@@ -0,0 +1,333 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * CsvTransactionRepository keeps transactions as CSV, split into segment files.
+ *
+ * New transactions go to the newest file in the data/transactions folder, named
+ * "<sequence>-<date>.csv", e.g. 000012-2025-05-06.csv. A new segment is started when the
+ * day changes (bank.log.rollDaily) or the current one reaches bank.log.segmentMaxBytes.
+ * Every segment has the usual header row, so each file is a valid transactions.csv on its own.
+ * An older single-file log (data/transactions.csv) is kept as the first segment.
+ *
+ * Each segment has a LogSegment summary (time range, ID range and a bloom filter of
+ * account IDs), so stream() skips segments that cannot hold a matching transaction and
+ * highestId() does not read any file at all.
+ * Reading is done with TransactionLogReader, which memory-maps a file and parses it in place.
+ */
+public class CsvTransactionRepository implements TransactionRepository {
+    private static final Path LEGACY_FILE = Paths.get(BankConfig.dataFile("transactions.csv"));
+    private static final Path SEGMENT_DIR = Paths.get(BankConfig.dataFile("transactions"));
+    private static final Pattern SEGMENT_NAME = Pattern.compile("(\\d{6})-(\\d{4}-\\d{2}-\\d{2})\\.csv");
+    private static final String HEADER = "TransactionID,Timestamp,FromAccount,ToAccount,Amount,Type,Note";
+    private static final Log LOG = Log.get(CsvTransactionRepository.class);
+
+    // Every segment, oldest first
+    private final List<LogSegment> segments = new ArrayList<>();
+    private boolean opened;
+
+    // The segment new transactions are appended to (the last one in SEGMENT_DIR)
+    private LogSegment active;
+    private LocalDate activeDay;
+    private int lastSequence;
+    private FileChannel channel;
+
+    @Override
+    public synchronized boolean append(List<Transaction> transactions, boolean sync) {
+        if (transactions.isEmpty()) {
+            return true;
+        }
+        long before = -1;
+        try {
+            ensureOpen();
+            if (shouldRoll()) {
+                roll();
+            }
+            if (channel == null) {
+                openChannel();
+            }
+            StringBuilder lines = new StringBuilder(transactions.size() * 96);
+            for (Transaction transaction : transactions) {
+                lines.append(transaction.toCSV()).append(System.lineSeparator());
+            }
+            before = channel.size();
+            long start = System.nanoTime();
+            int bytes = writeFully(lines.toString());
+            if (sync) {
+                channel.force(false);
+            }
+            Metrics.CSV_WRITE.recordSince(start);
+            active.addBytes(bytes);
+            for (Transaction transaction : transactions) {
+                active.add(transaction);
+            }
+            return true;
+        } catch (IOException e) {
+            LOG.error("Error writing transaction: " + e.getMessage(), e);
+            truncateTo(before); // Drop a half-written batch, so the logger can retry it
+            closeChannel(); // Reopen on the next batch
+            return false;
+        }
+    }
+
+    @Override
+    public List<Transaction> loadAll() {
+        long start = System.nanoTime();
+        List<Transaction> transactions = new ArrayList<>();
+        List<LogSegment> toRead;
+        synchronized (this) {
+            try {
+                ensureOpen();
+            } catch (IOException e) {
+                LOG.error("Error reading transaction segments: " + e.getMessage(), e);
+                return transactions;
+            }
+            toRead = new ArrayList<>(segments);
+        }
+        LOG.debug(() -> "Loading transactions from " + toRead.size() + " segment(s) in " + SEGMENT_DIR.toAbsolutePath());
+
+        // Each file is memory-mapped and parsed in place, see TransactionLogReader
+        for (LogSegment segment : toRead) {
+            try (TransactionLogReader reader = TransactionLogReader.open(segment.getPath())) {
+                while (reader.next()) {
+                    transactions.add(reader.toTransaction());
+                }
+            } catch (IOException e) {
+                LOG.error("Error reading transaction file " + segment.getPath() + ": " + e.getMessage(), e);
+            }
+        }
+        LOG.debug(() -> "Finished loading transactions. Total loaded: " + transactions.size());
+        Metrics.CSV_READ.recordSince(start);
+        return transactions;
+    }
+
+    /**
+     * Streams matching rows straight from the segment files through a TransactionLogReader
+     * Segments whose summary rules out the filter are never opened. In the others, rows are
+     * checked on the reader's cursor and only matching rows become Transaction objects,
+     * so memory use does not grow with the size of the log
+     */
+    @Override
+    public Stream<Transaction> stream(StatementFilter filter) {
+        List<Path> toRead = new ArrayList<>();
+        synchronized (this) {
+            try {
+                ensureOpen();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error reading transaction segments: " + e.getMessage(), e);
+            }
+            for (LogSegment segment : segments) {
+                if (filter.mightMatch(segment)) {
+                    toRead.add(segment.getPath());
+                }
+            }
+        }
+        SegmentCursor cursor = new SegmentCursor(toRead, filter);
+        return StreamSupport.stream(cursor, false).onClose(cursor::close);
+    }
+
+    @Override
+    public synchronized long highestId() {
+        try {
+            ensureOpen();
+        } catch (IOException e) {
+            LOG.error("Error scanning transaction IDs: " + e.getMessage(), e);
+            return 0;
+        }
+        long highestId = 0;
+        for (LogSegment segment : segments) {
+            highestId = Math.max(highestId, segment.getMaxId());
+        }
+        return highestId;
+    }
+
+    /**
+     * Finds the segment files and loads their summaries the first time the log is used
+     * Sealed segments use their saved summary; the active one is always read, since it
+     * has no up-to-date summary until it is sealed
+     */
+    private void ensureOpen() throws IOException {
+        if (opened) {
+            return;
+        }
+        segments.clear(); // In case an earlier attempt failed part way
+        active = null;
+        if (Files.exists(LEGACY_FILE)) {
+            segments.add(LogSegment.open(LEGACY_FILE));
+        }
+
+        TreeMap<Integer, Path> files = new TreeMap<>();
+        if (Files.isDirectory(SEGMENT_DIR)) {
+            try (Stream<Path> list = Files.list(SEGMENT_DIR)) {
+                list.forEach(path -> {
+                    Matcher name = SEGMENT_NAME.matcher(path.getFileName().toString());
+                    if (name.matches()) {
+                        files.put(Integer.parseInt(name.group(1)), path);
+                    }
+                });
+            }
+        }
+        for (Path path : files.values()) {
+            if (path.equals(files.lastEntry().getValue())) {
+                active = LogSegment.scan(path);
+                segments.add(active);
+            } else {
+                segments.add(LogSegment.open(path));
+            }
+        }
+        if (active != null) {
+            Matcher name = SEGMENT_NAME.matcher(active.getPath().getFileName().toString());
+            name.matches();
+            lastSequence = Integer.parseInt(name.group(1));
+            activeDay = LocalDate.parse(name.group(2));
+        }
+        opened = true;
+    }
+
+    private boolean shouldRoll() {
+        if (active == null) {
+            return true;
+        }
+        if (BankConfig.isLogRollDaily() && !LocalDate.now().equals(activeDay)) {
+            return true;
+        }
+        return active.getBytes() >= BankConfig.getLogSegmentMaxBytes();
+    }
+
+    /**
+     * Seals the active segment (saves its summary) and starts a new one
+     */
+    private void roll() throws IOException {
+        closeChannel();
+        if (active != null) {
+            active.writeSummary();
+        }
+        Files.createDirectories(SEGMENT_DIR);
+        LocalDate today = LocalDate.now();
+        lastSequence++;
+        Path path = SEGMENT_DIR.resolve(String.format("%06d-%s.csv", lastSequence, today));
+        active = LogSegment.create(path);
+        activeDay = today;
+        segments.add(active);
+    }
+
+    /**
+     * Opens the active segment for appending, writing the header row if the file is new or empty
+     */
+    private void openChannel() throws IOException {
+        channel = FileChannel.open(active.getPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (channel.size() == 0) {
+            active.addBytes(writeFully(HEADER + System.lineSeparator()));
+        }
+    }
+
+    /**
+     * Writes text to the end of the active segment
+     * @return The number of bytes written
+     */
+    private int writeFully(String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return buffer.capacity();
+    }
+
+    /**
+     * Cuts the active segment back to the size it had before a failed write
+     */
+    private void truncateTo(long size) {
+        if (channel == null || size < 0) {
+            return;
+        }
+        try {
+            channel.truncate(size);
+        } catch (IOException e) {
+            LOG.error("Error undoing a failed transaction write: " + e.getMessage(), e);
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOG.error("Error closing transaction file: " + e.getMessage(), e);
+        }
+        channel = null;
+    }
+
+    /**
+     * Reads the rows of several segment files one after another, one file open at a time
+     */
+    private static class SegmentCursor extends Spliterators.AbstractSpliterator<Transaction> {
+        private final List<Path> files;
+        private final StatementFilter filter;
+        private int nextFile;
+        private TransactionLogReader reader;
+
+        SegmentCursor(List<Path> files, StatementFilter filter) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.files = files;
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Transaction> action) {
+            try {
+                while (true) {
+                    if (reader == null) {
+                        if (nextFile >= files.size()) {
+                            return false;
+                        }
+                        reader = TransactionLogReader.open(files.get(nextFile++));
+                    }
+                    while (reader.next()) {
+                        if (filter.matches(reader)) {
+                            action.accept(reader.toTransaction());
+                            return true;
+                        }
+                    }
+                    close();
+                }
+            } catch (IOException e) {
+                // A read error must not look like the end of the log to whoever is adding it up
+                close();
+                throw new UncheckedIOException("Error reading transaction file: " + e.getMessage(), e);
+            }
+        }
+
+        void close() {
+            if (reader == null) {
+                return;
+            }
+            try {
+                reader.close();
+            } catch (IOException e) {
+                LOG.error("Error closing transaction file: " + e.getMessage(), e);
+            }
+            reader = null;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+import java.util.List;
+
+/**
+ * CsvUserRepository keeps users in users.csv through UserCSV.
+ * New users are appended, other changes rewrite the file.
+ */
+public class CsvUserRepository implements UserRepository {
+
+    @Override
+    public List<User> loadAll() {
+        long start = System.nanoTime();
+        List<User> users = UserCSV.loadUsers();
+        Metrics.CSV_READ.recordSince(start);
+        return users;
+    }
+
+    @Override
+    public boolean add(User user) {
+        long start = System.nanoTime();
+        boolean added = UserCSV.appendUser(user);
+        Metrics.CSV_WRITE.recordSince(start);
+        return added;
+    }
+
+    @Override
+    public boolean saveAll(List<User> users) {
+        long start = System.nanoTime();
+        boolean saved = UserCSV.saveUsers(users);
+        Metrics.CSV_WRITE.recordSince(start);
+        return saved;
+    }
+}
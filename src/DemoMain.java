@@ -1,3 +1,4 @@
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
@@ -19,7 +20,7 @@ public class DemoMain {
 
         // Load existing users from CSV file
         try {
-            users = UserCSV.loadUsers();
+            users = UserDirectory.getAllUsers();
         } catch (Exception e) {
             System.err.println("Critical error loading users: " + e.getMessage());
             System.err.println("Starting with empty user list");
@@ -47,7 +48,7 @@ public class DemoMain {
                 System.out.println("\nCreating admin user...");
                 admin = new Admin("admin", "admin123", null);
                 users.add(admin);
-                if (!UserCSV.saveUsers(users)) {
+                if (!UserDirectory.addUser(admin)) {
                     System.err.println("Warning: Failed to save admin user to CSV");
                 }
             }
@@ -90,11 +91,9 @@ public class DemoMain {
                             }
 
                             // Check if username already exists
-                            for (User user : users) {
-                                if (user.getUsername().equals(username)) {
-                                    System.err.println("Username already exists");
-                                    break;
-                                }
+                            if (UserDirectory.findByUsername(username) != null) {
+                                System.err.println("Username already exists");
+                                break;
                             }
 
                             System.out.print("Enter password: ");
@@ -105,11 +104,11 @@ public class DemoMain {
                                 break;
                             }
 
-                            // Create new user and save to CSV
+                            // Create new user and append it to the CSV
                             User newUser = new User(username, password, "STANDARD", null);
                             users.add(newUser);
 
-                            if (!UserCSV.saveUsers(users)) {
+                            if (!UserDirectory.addUser(newUser)) {
                                 System.err.println("Warning: Failed to save new user to CSV");
                             }
 
@@ -227,14 +226,7 @@ public class DemoMain {
                             }
 
                             // Authenticate user
-                            User loggedInUser = null;
-                            for (User user : users) {
-                                if (user.getUsername().equals(loginUsername) &&
-                                        user.getPassword().equals(loginPassword)) {
-                                    loggedInUser = user;
-                                    break;
-                                }
-                            }
+                            User loggedInUser = UserDirectory.authenticate(loginUsername, loginPassword);
 
                             if (loggedInUser != null) {
                                 System.out.println("Login successful!");
@@ -394,6 +386,7 @@ public class DemoMain {
 
         BankAccount selectedAccount = userAccounts.get(depositAccount - 1);
         selectedAccount.deposit(depositAmount);
+        Log.flush(); // Show the deposit messages before the rest of this screen
         
         if (selectedAccount.getAccountType().equals("SAVING")) {
             System.out.println("Updated APY: " +
@@ -424,6 +417,7 @@ public class DemoMain {
 
         BankAccount selectedAccount = userAccounts.get(withdrawAccount - 1);
         selectedAccount.withdraw(withdrawAmount);
+        Log.flush(); // Show the withdrawal messages before the rest of this screen
         
         if (selectedAccount.getAccountType().equals("SAVING")) {
             System.out.println("Updated APY: " +
@@ -511,19 +505,8 @@ public class DemoMain {
             System.out.print("\nEnter recipient's username: ");
             String recipientUsername = scanner.nextLine().trim();
 
-            // Find recipient's accounts
-            List<BankAccount> allAccounts = BankAccount.getAllAccounts();
-            List<BankAccount> recipientAccounts = new ArrayList<>();
-
             // First find the recipient user
-            User recipient = null;
-            List<User> allUsers = UserCSV.loadUsers();
-            for (User u : allUsers) {
-                if (u.getUsername().equalsIgnoreCase(recipientUsername)) {
-                    recipient = u;
-                    break;
-                }
-            }
+            User recipient = UserDirectory.findByUsername(recipientUsername);
 
             if (recipient == null) {
                 System.out.println("❌ User not found: " + recipientUsername);
@@ -531,11 +514,7 @@ public class DemoMain {
             }
 
             // Now find all accounts for this recipient
-            for (BankAccount account : allAccounts) {
-                if (account.getUserID() == recipient.getUserID()) {
-                    recipientAccounts.add(account);
-                }
-            }
+            List<BankAccount> recipientAccounts = BankAccount.getUserAccounts(recipient.getUserID());
 
             if (recipientAccounts.isEmpty()) {
                 System.out.println("❌ No accounts found for user: " + recipientUsername);
@@ -571,6 +550,7 @@ public class DemoMain {
         }
 
         boolean success = sourceAccount.transfer(destinationAccount, transferAmount);
+        Log.flush(); // Show the transfer messages before the rest of this screen
         if (success) {
             System.out.println("✅ Transfer successful!");
             System.out.println("New balance in your account: $" + sourceAccount.getBalance());
@@ -588,13 +568,7 @@ public class DemoMain {
      * @return The User object if found, null otherwise
      */
     private static User findUserByID(int userID) {
-        List<User> users = UserCSV.loadUsers();
-        for (User user : users) {
-            if (user.getUserID() == userID) {
-                return user;
-            }
-        }
-        return null;
+        return UserDirectory.findByID(userID);
     }
 
     /**
@@ -655,8 +629,10 @@ public class DemoMain {
             System.out.println("6. Admin Deposit");
             System.out.println("7. Admin Withdrawal");
             System.out.println("8. View All Transactions");
-            System.out.println("9. Logout");
-            System.out.print("Enter your choice (1-9): ");
+            System.out.println("9. View Performance Metrics");
+            System.out.println("10. View Reports");
+            System.out.println("11. Logout");
+            System.out.print("Enter your choice (1-11): ");
 
             int adminChoice = scanner.nextInt();
             scanner.nextLine(); // Consume newline
@@ -671,10 +647,8 @@ public class DemoMain {
                     String newUsername = scanner.nextLine();
                     System.out.print("Enter new password: ");
                     String newPassword = scanner.nextLine();
-                    User newUser = admin.createUser(newUsername, newPassword, "STANDARD", null);
+                    User newUser = admin.createUser(newUsername, newPassword, "STANDARD", null);  // Also appends to the CSV
                     users.add(newUser);
-                    // Save updated users list to CSV
-                    UserCSV.saveUsers(users);
                     System.out.println("✅ Created new user: " + newUsername);
                     break;
 
@@ -724,6 +698,7 @@ public class DemoMain {
                     double adminDepositAmount = scanner.nextDouble();
 
                     admin.depositToUserAccount(allAccounts.get(adminDepositAccount - 1), adminDepositAmount);
+                    Log.flush();
                     if (allAccounts.get(adminDepositAccount - 1).getAccountType().equals("SAVING")) {
                         System.out.println("Updated APY: " +
                                 (allAccounts.get(adminDepositAccount - 1).getAPY() * 100) + "%");
@@ -743,6 +718,7 @@ public class DemoMain {
                     double adminWithdrawAmount = scanner.nextDouble();
 
                     admin.withdrawFromUserAccount(allAccounts.get(adminWithdrawAccount - 1), adminWithdrawAmount);
+                    Log.flush();
                     if (allAccounts.get(adminWithdrawAccount - 1).getAccountType().equals("SAVING")) {
                         System.out.println("Updated APY: " +
                                 (allAccounts.get(adminWithdrawAccount - 1).getAPY() * 100) + "%");
@@ -754,6 +730,14 @@ public class DemoMain {
                     break;
 
                 case 9:
+                    handleAdminMetrics();
+                    break;
+
+                case 10:
+                    handleAdminReports();
+                    break;
+
+                case 11:
                     adminRunning = false;
                     System.out.println("Logged out successfully.");
                     break;
@@ -765,26 +749,32 @@ public class DemoMain {
     }
 
     /**
-     * Displays transaction history for admin view
+     * Shows operation counts and latency percentiles, and saves them for Prometheus
      */
-    private static void handleAdminTransactionHistory() {
-        System.out.println("\n=== All Transactions ===");
-        List<Transaction> transactions = TransactionHistory.getAllTransactions();
-
-        if (transactions.isEmpty()) {
-            System.out.println("No transactions found.");
-            return;
+    private static void handleAdminMetrics() {
+        System.out.println("\n=== Performance Metrics ===");
+        System.out.print(Metrics.report());
+        System.out.println("Account cache: " + AccountStore.getCacheStats());
+        if (Metrics.dump(Paths.get(BankConfig.getMetricsFile()))) {
+            System.out.println("Saved to " + BankConfig.getMetricsFile());
         }
+    }
 
-        for (Transaction transaction : transactions) {
-            System.out.println("\nTransaction ID: " + transaction.getTransactionId());
-            System.out.println("Date: " + transaction.getTimestamp());
-            System.out.println("Type: " + transaction.getType());
-            System.out.println("Amount: $" + transaction.getAmount());
-            System.out.println("From: " + transaction.getFromAccount());
-            System.out.println("To: " + transaction.getToAccount());
-            System.out.println("Note: " + transaction.getNote());
-            System.out.println("-------------------");
-        }
+    /**
+     * Shows the reports over every account and the whole transaction log
+     */
+    private static void handleAdminReports() {
+        System.out.println("\n=== Reports ===");
+        long start = System.nanoTime();
+        System.out.print(ReportEngine.report(10));
+        System.out.printf("Reports took %.1f ms%n", (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * Displays transaction history for admin view
+     */
+    private static void handleAdminTransactionHistory() {
+        // Streams the log page by page instead of loading every transaction first
+        StatementPrinter.print("All Transactions", new StatementFilter());
     }
 }
@@ -0,0 +1,121 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * InterestEngine runs the month-end interest job for every savings account at once.
+ *
+ * Calling SavingsAccount.applyInterest() on each account one by one logs and saves every account
+ * separately. The engine instead:
+ * 1. splits the savings accounts into chunks and credits each chunk in parallel on a ForkJoinPool,
+ *    using the same APY tiers as SavingsAccount (each account is locked while it is credited),
+ * 2. saves all changed balances with one snapshot write (AccountStore.commitBatch), and
+ * 3. logs all INTEREST transactions with one batched append (TransactionLogger.logAll).
+ */
+public class InterestEngine {
+    // Chunks smaller than this are not split any further
+    private static final int CHUNK_SIZE = 1024;
+
+    /**
+     * Applies one month of interest to every savings account
+     * Nothing is credited if the transaction log has stopped after a write failure
+     * @return The INTEREST transactions that were logged, one per account that earned interest
+     */
+    public static List<Transaction> applyMonthlyInterest() {
+        if (!BankAccount.logAccepting("Interest run")) {
+            return new ArrayList<>();
+        }
+        List<SavingsAccount> savings = new ArrayList<>();
+        for (BankAccount account : AccountStore.getAllAccounts()) {
+            if (account instanceof SavingsAccount) {
+                savings.add((SavingsAccount) account);
+            }
+        }
+
+        long[] interestCents = new long[savings.size()];
+        ForkJoinPool.commonPool().invoke(new InterestTask(savings, interestCents, 0, savings.size()));
+
+        List<BankAccount> changed = new ArrayList<>();
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < savings.size(); i++) {
+            if (interestCents[i] > 0) {
+                SavingsAccount account = savings.get(i);
+                changed.add(account);
+                transactions.add(new Transaction(
+                        "SYSTEM",                          // source account (the bank pays the interest)
+                        account.getAccountID(),            // destination account
+                        Money.toDouble(interestCents[i]),  // amount
+                        "INTEREST",                        // transaction type
+                        "Monthly interest"                 // note
+                ));
+            }
+        }
+
+        if (!AccountStore.commitBatch(changed)) {
+            System.err.println("Warning: interest was applied but the accounts file could not be saved yet");
+        }
+        if (!TransactionLogger.logAll(transactions)) {
+            System.err.println("Error: interest was applied but its transactions could not be written to the log");
+        }
+        return transactions;
+    }
+
+    /**
+     * Credits interest to a range of savings accounts, splitting the range in half
+     * until it is small enough to process directly
+     */
+    private static class InterestTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // ForkJoinTask is Serializable, but these tasks only ever run inside this program
+        private final transient List<SavingsAccount> accounts;
+        private final long[] interestCents;
+        private final int from;
+        private final int to;
+
+        InterestTask(List<SavingsAccount> accounts, long[] interestCents, int from, int to) {
+            this.accounts = accounts;
+            this.interestCents = interestCents;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new InterestTask(accounts, interestCents, from, middle),
+                        new InterestTask(accounts, interestCents, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                SavingsAccount account = accounts.get(i);
+                AccountLocks.lock(account.getAccountID());
+                try {
+                    long cents = account.calculateMonthlyInterestCents();
+                    if (cents > 0) {
+                        account.creditCents(cents);
+                    }
+                    interestCents[i] = cents;
+                } finally {
+                    AccountLocks.unlock(account.getAccountID());
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the month-end interest job from the command line
+     */
+    public static void main(String[] args) {
+        long start = System.currentTimeMillis();
+        List<Transaction> transactions = applyMonthlyInterest();
+        long total = 0;
+        for (Transaction transaction : transactions) {
+            total += transaction.getAmountCents();
+        }
+        System.out.println("Credited $" + Money.format(total) + " of interest to "
+                + transactions.size() + " savings accounts in " + (System.currentTimeMillis() - start) + " ms");
+    }
+}
@@ -0,0 +1,151 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * JdbcAccountRepository keeps accounts in the accounts table of an embedded SQL database
+ * (see JdbcDatabase). Each change updates one row by its primary key, and a batch is
+ * saved in a single database transaction.
+ */
+public class JdbcAccountRepository implements AccountRepository {
+    private static final String SELECT_ALL = "SELECT account_id, user_id, balance_cents, account_type FROM accounts";
+    private static final String SELECT_ONE = SELECT_ALL + " WHERE account_id = ?";
+    private static final String UPDATE = "UPDATE accounts SET user_id = ?, balance_cents = ?, account_type = ? WHERE account_id = ?";
+    private static final String INSERT = "INSERT INTO accounts (account_id, user_id, balance_cents, account_type) VALUES (?, ?, ?, ?)";
+    private static final String DELETE = "DELETE FROM accounts WHERE account_id = ?";
+
+    @Override
+    public List<BankAccount> loadAll() {
+        List<BankAccount> accounts = new ArrayList<>();
+        try {
+            Connection connection = JdbcDatabase.borrow();
+            try {
+                try (PreparedStatement select = connection.prepareStatement(SELECT_ALL);
+                     ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        accounts.add(BankAccountCSV.createAccount(rows.getString(1), rows.getInt(2),
+                                rows.getLong(3), rows.getString(4)));
+                    }
+                }
+            } finally {
+                JdbcDatabase.release(connection);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Error loading accounts from database: " + e.getMessage(), e);
+        }
+        return accounts;
+    }
+
+    @Override
+    public BankAccount find(String accountID) {
+        try {
+            Connection connection = JdbcDatabase.borrow();
+            try {
+                try (PreparedStatement select = connection.prepareStatement(SELECT_ONE)) {
+                    select.setString(1, accountID);
+                    try (ResultSet rows = select.executeQuery()) {
+                        if (rows.next()) {
+                            return BankAccountCSV.createAccount(rows.getString(1), rows.getInt(2),
+                                    rows.getLong(3), rows.getString(4));
+                        }
+                    }
+                }
+            } finally {
+                JdbcDatabase.release(connection);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Error loading account from database: " + e.getMessage(), e);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean needsAllAccounts() {
+        return false;
+    }
+
+    @Override
+    public boolean save(BankAccount account) {
+        return saveAll(List.of(account));
+    }
+
+    @Override
+    public BooleanSupplier stage(BankAccount account) {
+        // The row is written right away: a statement run after the locks are released
+        // could overwrite a newer balance written by another thread
+        boolean saved = save(account);
+        return () -> saved;
+    }
+
+    @Override
+    public boolean saveAll(Collection<BankAccount> accounts) {
+        if (accounts.isEmpty()) {
+            return true;
+        }
+        try {
+            Connection connection = JdbcDatabase.borrow();
+            try {
+                connection.setAutoCommit(false);
+                try (PreparedStatement update = connection.prepareStatement(UPDATE);
+                     PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                    for (BankAccount account : accounts) {
+                        // Update the existing row, or add one if the account is new
+                        update.setInt(1, account.getUserID());
+                        update.setLong(2, account.getBalanceCents());
+                        update.setString(3, account.getAccountType());
+                        update.setString(4, account.getAccountID());
+                        if (update.executeUpdate() == 0) {
+                            insert.setString(1, account.getAccountID());
+                            insert.setInt(2, account.getUserID());
+                            insert.setLong(3, account.getBalanceCents());
+                            insert.setString(4, account.getAccountType());
+                            insert.executeUpdate();
+                        }
+                    }
+                    connection.commit();
+                    return true;
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            } finally {
+                JdbcDatabase.release(connection);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error saving accounts to database: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean delete(String accountID) {
+        try {
+            Connection connection = JdbcDatabase.borrow();
+            try {
+                try (PreparedStatement delete = connection.prepareStatement(DELETE)) {
+                    delete.setString(1, accountID);
+                    delete.executeUpdate();
+                    return true;
+                }
+            } finally {
+                JdbcDatabase.release(connection);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error deleting account from database: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean checkpoint(Supplier<Collection<BankAccount>> allAccounts) {
+        return true; // Every change was committed when it was saved
+    }
+}
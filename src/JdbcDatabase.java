@@ -0,0 +1,160 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JdbcDatabase hands out connections to the database used by the JDBC repositories and
+ * creates their tables the first time it connects.
+ *
+ * Any embedded database with a JDBC driver on the classpath can be used, for example
+ *   -Dbank.jdbc.url=jdbc:h2:file:data/bank
+ *   -Dbank.jdbc.url=jdbc:sqlite:data/bank.db
+ * Only plain SQL is used, so the same tables work on either.
+ *
+ * Connections are kept in a small pool (bank.jdbc.poolSize): a repository borrows one for
+ * each call and gives it back when done, so several threads can use the database at once
+ * and no statement ever shares a connection with another thread's statement.
+ */
+public class JdbcDatabase {
+    // Connections not in use right now
+    private static final BlockingQueue<Connection> idle = new LinkedBlockingQueue<>();
+    // Connections opened so far (in use or idle)
+    private static final AtomicInteger opened = new AtomicInteger();
+    private static volatile boolean tablesCreated = false;
+
+    /**
+     * Opens the database and creates the tables, failing straight away if that is not possible
+     * Called when the jdbc backend is selected, so a missing driver or a bad URL stops the
+     * program at startup instead of it running with no data and dropping every write
+     * @throws IllegalStateException If the database cannot be opened
+     */
+    public static void open() {
+        try {
+            release(borrow());
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot open the database at " + BankConfig.getJdbcUrl()
+                    + " (is the JDBC driver on the classpath?): " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Borrows a connection, opening a new one if none is idle and the pool is not full yet,
+     * otherwise waiting for another thread to give one back
+     * Every borrowed connection must be handed back with release()
+     * @return A connection for this thread to use alone
+     * @throws SQLException If a new connection cannot be opened
+     */
+    public static Connection borrow() throws SQLException {
+        Connection connection = idle.poll();
+        if (connection != null) {
+            return connection;
+        }
+        int poolSize = Math.max(1, BankConfig.getJdbcPoolSize());
+        while (true) {
+            int count = opened.get();
+            if (count >= poolSize) {
+                break;
+            }
+            if (opened.compareAndSet(count, count + 1)) {
+                try {
+                    return connect();
+                } catch (SQLException e) {
+                    opened.decrementAndGet();
+                    throw e;
+                }
+            }
+        }
+        try {
+            return idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    /**
+     * Gives a borrowed connection back to the pool
+     * A connection that was closed (for example after an error) is dropped instead
+     * @param connection The connection from borrow()
+     */
+    public static void release(Connection connection) {
+        try {
+            if (connection.isClosed()) {
+                opened.decrementAndGet();
+                return;
+            }
+        } catch (SQLException e) {
+            opened.decrementAndGet();
+            return;
+        }
+        idle.add(connection);
+    }
+
+    private static Connection connect() throws SQLException {
+        Connection connection = DriverManager.getConnection(BankConfig.getJdbcUrl(),
+                BankConfig.getJdbcUser(), BankConfig.getJdbcPassword());
+        if (!tablesCreated) {
+            synchronized (JdbcDatabase.class) {
+                if (!tablesCreated) {
+                    try {
+                        createTables(connection);
+                    } catch (SQLException e) {
+                        connection.close();
+                        throw e;
+                    }
+                    tablesCreated = true;
+                    Runtime.getRuntime().addShutdownHook(new Thread(JdbcDatabase::close, "jdbc-database-shutdown"));
+                }
+            }
+        }
+        return connection;
+    }
+
+    private static void createTables(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS accounts ("
+                    + "account_id VARCHAR(255) PRIMARY KEY, "
+                    + "user_id INTEGER NOT NULL, "
+                    + "balance_cents BIGINT NOT NULL, "
+                    + "account_type VARCHAR(20) NOT NULL)");
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS accounts_user_id ON accounts (user_id)");
+
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS users ("
+                    + "user_id INTEGER PRIMARY KEY, "
+                    + "username VARCHAR(255) NOT NULL, "
+                    + "password VARCHAR(255) NOT NULL, "
+                    + "role VARCHAR(50) NOT NULL)");
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS users_username ON users (username)");
+
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS transactions ("
+                    + "transaction_id BIGINT PRIMARY KEY, "
+                    + "created VARCHAR(40) NOT NULL, "
+                    + "from_account VARCHAR(255) NOT NULL, "
+                    + "to_account VARCHAR(255) NOT NULL, "
+                    + "amount_cents BIGINT NOT NULL, "
+                    + "type VARCHAR(50) NOT NULL, "
+                    + "note VARCHAR(255))");
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS transactions_from ON transactions (from_account)");
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS transactions_to ON transactions (to_account)");
+        }
+    }
+
+    /**
+     * Closes the idle connections, new ones are opened by the next borrow()
+     */
+    public static void close() {
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            opened.decrementAndGet();
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing database: " + e.getMessage());
+            }
+        }
+    }
+}
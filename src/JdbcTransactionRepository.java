@@ -0,0 +1,105 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * JdbcTransactionRepository keeps transactions in the transactions table of an embedded
+ * SQL database (see JdbcDatabase). Each batch from TransactionLogger is inserted as one
+ * JDBC batch inside one database transaction.
+ */
+public class JdbcTransactionRepository implements TransactionRepository {
+    private static final String INSERT = "INSERT INTO transactions "
+            + "(transaction_id, created, from_account, to_account, amount_cents, type, note) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_ALL = "SELECT transaction_id, created, from_account, to_account, amount_cents, type, note "
+            + "FROM transactions ORDER BY transaction_id";
+    private static final String SELECT_MAX = "SELECT MAX(transaction_id) FROM transactions";
+
+    @Override
+    public boolean append(List<Transaction> transactions, boolean sync) {
+        if (transactions.isEmpty()) {
+            return true;
+        }
+        // The database decides when committed rows reach the disk, so sync is not used here
+        try {
+            Connection connection = JdbcDatabase.borrow();
+            try {
+                connection.setAutoCommit(false);
+                try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                    for (Transaction transaction : transactions) {
+                        insert.setLong(1, transaction.getTransactionId());
+                        insert.setString(2, transaction.getTimestamp());
+                        insert.setString(3, transaction.getFromAccount());
+                        insert.setString(4, transaction.getToAccount());
+                        insert.setLong(5, transaction.getAmountCents());
+                        insert.setString(6, transaction.getType());
+                        insert.setString(7, transaction.getNote());
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                    connection.commit();
+                    return true;
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            } finally {
+                JdbcDatabase.release(connection);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error writing transactions to database: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public List<Transaction> loadAll() {
+        List<Transaction> transactions = new ArrayList<>();
+        try {
+            Connection connection = JdbcDatabase.borrow();
+            try {
+                try (PreparedStatement select = connection.prepareStatement(SELECT_ALL);
+                     ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        transactions.add(new Transaction(rows.getLong(1), rows.getString(2), rows.getString(3),
+                                rows.getString(4), rows.getLong(5), rows.getString(6), rows.getString(7)));
+                    }
+                }
+            } finally {
+                JdbcDatabase.release(connection);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Error loading transactions from database: " + e.getMessage(), e);
+        }
+        return transactions;
+    }
+
+    @Override
+    public Stream<Transaction> stream(StatementFilter filter) {
+        // Rows are read up front so no pooled connection is held while the caller consumes them
+        return loadAll().stream().filter(filter::matches);
+    }
+
+    @Override
+    public long highestId() {
+        try {
+            Connection connection = JdbcDatabase.borrow();
+            try {
+                try (PreparedStatement select = connection.prepareStatement(SELECT_MAX);
+                     ResultSet rows = select.executeQuery()) {
+                    return rows.next() ? rows.getLong(1) : 0;
+                }
+            } finally {
+                JdbcDatabase.release(connection);
+            }
+        } catch (SQLException e) {
+            // Starting from 0 would hand out IDs that are already taken
+            throw new IllegalStateException("Error reading highest transaction ID from database: " + e.getMessage(), e);
+        }
+    }
+}
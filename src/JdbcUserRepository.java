@@ -0,0 +1,99 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JdbcUserRepository keeps users in the users table of an embedded SQL database
+ * (see JdbcDatabase).
+ */
+public class JdbcUserRepository implements UserRepository {
+    private static final String SELECT_ALL = "SELECT username, password, role, user_id FROM users ORDER BY user_id";
+    private static final String INSERT = "INSERT INTO users (username, password, role, user_id) VALUES (?, ?, ?, ?)";
+
+    @Override
+    public List<User> loadAll() {
+        List<User> users = new ArrayList<>();
+        try {
+            Connection connection = JdbcDatabase.borrow();
+            try {
+                try (PreparedStatement select = connection.prepareStatement(SELECT_ALL);
+                     ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        String role = rows.getString(3);
+                        if (role.equalsIgnoreCase("ADMIN")) {
+                            users.add(new Admin(rows.getString(1), rows.getString(2), rows.getInt(4)));
+                        } else {
+                            users.add(new User(rows.getString(1), rows.getString(2), role, rows.getInt(4)));
+                        }
+                    }
+                }
+            } finally {
+                JdbcDatabase.release(connection);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Error loading users from database: " + e.getMessage(), e);
+        }
+        return users;
+    }
+
+    @Override
+    public boolean add(User user) {
+        try {
+            Connection connection = JdbcDatabase.borrow();
+            try {
+                try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                    bind(insert, user);
+                    insert.executeUpdate();
+                    return true;
+                }
+            } finally {
+                JdbcDatabase.release(connection);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error adding user to database: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean saveAll(List<User> users) {
+        try {
+            Connection connection = JdbcDatabase.borrow();
+            try {
+                connection.setAutoCommit(false);
+                try (Statement clear = connection.createStatement();
+                     PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                    clear.executeUpdate("DELETE FROM users");
+                    for (User user : users) {
+                        bind(insert, user);
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                    connection.commit();
+                    return true;
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            } finally {
+                JdbcDatabase.release(connection);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error saving users to database: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void bind(PreparedStatement insert, User user) throws SQLException {
+        insert.setString(1, user.getUsername());
+        insert.setString(2, user.getPassword());
+        insert.setString(3, user.getRole());
+        insert.setInt(4, user.getUserID());
+    }
+}
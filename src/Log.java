@@ -0,0 +1,286 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Log writes messages with a level, without making the caller wait for the console or a file.
+ *
+ * Each class gets its own Log:
+ *   private static final Log LOG = Log.get(BankAccount.class);
+ *   LOG.info("You have Deposited: $" + amount);
+ *   LOG.debug(() -> "Deposit transaction created with ID: " + id);
+ *
+ * - Levels: DEBUG < INFO < WARN < ERROR. Messages below bank.log.level (default INFO) are
+ *   dropped by a single comparison. The Supplier versions only build the message string
+ *   when the level is enabled, so disabled debug messages cost almost nothing.
+ * - Messages go into a fixed-size ring buffer and a background thread writes them out.
+ *   If the buffer is full the message is dropped (and counted) instead of blocking the caller.
+ * - Output goes to the console (INFO as plain text on System.out, the other levels tagged,
+ *   WARN and ERROR on System.err), or to bank.log.file with a timestamp on every line.
+ *
+ * Because writing happens in the background, console code that prints right after a logged
+ * operation should call Log.flush() first so the messages come out in order.
+ */
+public class Log {
+    public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    private static volatile Level threshold = BankConfig.getLogLevel();
+
+    private static final int CAPACITY = Integer.highestOneBit(Math.max(16, BankConfig.getLogBufferSize()));
+    // The appender writes out what it has collected once it holds this many characters
+    private static final int FLUSH_CHARS = 64 * 1024;
+    private static final AtomicReferenceArray<Entry> ring = new AtomicReferenceArray<>(CAPACITY);
+    // Next slot to claim (producers) and next slot to write out (appender thread)
+    private static final AtomicLong tail = new AtomicLong();
+    private static final AtomicLong head = new AtomicLong();
+    // Every entry before this position has been written and flushed
+    private static volatile long written;
+    private static final AtomicLong dropped = new AtomicLong();
+
+    private static Thread appender;
+    private static volatile boolean appenderIdle;
+
+    private final String name;
+
+    /**
+     * One message waiting in the ring buffer
+     */
+    private static class Entry {
+        final long time = System.currentTimeMillis();
+        final Level level;
+        final String name;
+        final String message;
+        final Throwable error;
+
+        Entry(Level level, String name, String message, Throwable error) {
+            this.level = level;
+            this.name = name;
+            this.message = message;
+            this.error = error;
+        }
+    }
+
+    private Log(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets a log for a class
+     * @param owner The class that writes the messages
+     * @return The log
+     */
+    public static Log get(Class<?> owner) {
+        return new Log(owner.getSimpleName());
+    }
+
+    /**
+     * Changes the lowest level that is written, for every log
+     * @param level The new level
+     */
+    public static void setLevel(Level level) {
+        threshold = level;
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(threshold) >= 0;
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public void debug(Supplier<String> message) {
+        if (isEnabled(Level.DEBUG)) {
+            publish(new Entry(Level.DEBUG, name, message.get(), null));
+        }
+    }
+
+    public void info(String message) {
+        if (isEnabled(Level.INFO)) {
+            publish(new Entry(Level.INFO, name, message, null));
+        }
+    }
+
+    public void info(Supplier<String> message) {
+        if (isEnabled(Level.INFO)) {
+            publish(new Entry(Level.INFO, name, message.get(), null));
+        }
+    }
+
+    public void warn(String message) {
+        if (isEnabled(Level.WARN)) {
+            publish(new Entry(Level.WARN, name, message, null));
+        }
+    }
+
+    public void error(String message) {
+        error(message, null);
+    }
+
+    public void error(String message, Throwable error) {
+        if (isEnabled(Level.ERROR)) {
+            publish(new Entry(Level.ERROR, name, message, error));
+        }
+    }
+
+    /**
+     * Waits until every message logged so far has been written out
+     */
+    public static void flush() {
+        long target = tail.get();
+        while (written < target && appender != null && appender.isAlive()) {
+            LockSupport.unpark(appender);
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    /**
+     * Puts a message in the ring buffer, or drops it if the buffer is full
+     */
+    private static void publish(Entry entry) {
+        startAppender();
+        long slot;
+        do {
+            slot = tail.get();
+            if (slot - head.get() >= CAPACITY) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!tail.compareAndSet(slot, slot + 1));
+        ring.set((int) slot & (CAPACITY - 1), entry);
+        if (appenderIdle) {
+            LockSupport.unpark(appender);
+        }
+    }
+
+    private static synchronized void startAppender() {
+        if (appender != null) {
+            return;
+        }
+        appender = new Thread(Log::appendLoop, "log-appender");
+        appender.setDaemon(true);
+        appender.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::flush, "log-shutdown"));
+    }
+
+    /**
+     * Body of the appender thread: write out everything in the buffer, then sleep until
+     * a new message arrives
+     */
+    private static void appendLoop() {
+        Sink sink = Sink.open();
+        while (true) {
+            long position = head.get();
+            Entry entry = ring.get((int) position & (CAPACITY - 1));
+            if (entry == null) {
+                // Nothing published at this position yet: flush what was written and wait
+                sink.flush();
+                written = position;
+                appenderIdle = true;
+                if (ring.get((int) position & (CAPACITY - 1)) == null) {
+                    LockSupport.parkNanos(10_000_000);
+                }
+                appenderIdle = false;
+                continue;
+            }
+            ring.set((int) position & (CAPACITY - 1), null);
+            head.set(position + 1);
+            long lost = dropped.getAndSet(0);
+            if (lost > 0) {
+                sink.write(new Entry(Level.WARN, "Log", lost + " message(s) dropped, log buffer was full", null));
+            }
+            sink.write(entry);
+            if (sink.size() >= FLUSH_CHARS) {
+                sink.flush();
+                written = position + 1;
+            }
+        }
+    }
+
+    /**
+     * Where the appender thread writes: the console, or a file if bank.log.file is set
+     */
+    private static class Sink {
+        private final Writer file;
+        private final StringBuilder out = new StringBuilder();
+        private final StringBuilder err = new StringBuilder();
+
+        private Sink(Writer file) {
+            this.file = file;
+        }
+
+        static Sink open() {
+            String path = BankConfig.getLogFile();
+            if (path.isEmpty()) {
+                return new Sink(null);
+            }
+            try {
+                return new Sink(Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+            } catch (IOException e) {
+                System.err.println("Error opening log file, logging to the console: " + e.getMessage());
+                return new Sink(null);
+            }
+        }
+
+        void write(Entry entry) {
+            StringBuilder text;
+            if (file != null) {
+                text = out;
+                text.append(LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.time), ZoneId.systemDefault()))
+                        .append(' ').append(entry.level).append(' ').append(entry.name).append(" - ");
+            } else if (entry.level == Level.INFO) {
+                text = out;
+            } else {
+                text = entry.level == Level.DEBUG ? out : err;
+                text.append('[').append(entry.level).append("] ").append(entry.name).append(": ");
+            }
+            text.append(entry.message).append(System.lineSeparator());
+            if (entry.error != null) {
+                StringWriter trace = new StringWriter();
+                entry.error.printStackTrace(new PrintWriter(trace));
+                text.append(trace);
+            }
+        }
+
+        int size() {
+            return out.length() + err.length();
+        }
+
+        void flush() {
+            if (file != null) {
+                try {
+                    file.write(out.toString());
+                    file.flush();
+                } catch (IOException e) {
+                    System.err.println("Error writing log file: " + e.getMessage());
+                }
+            } else {
+                print(System.out, out);
+                print(System.err, err);
+            }
+            out.setLength(0);
+            err.setLength(0);
+        }
+
+        private static void print(PrintStream stream, StringBuilder text) {
+            if (text.length() > 0) {
+                stream.print(text);
+                stream.flush();
+            }
+        }
+    }
+}
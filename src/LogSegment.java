@@ -0,0 +1,254 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Properties;
+
+/**
+ * LogSegment is one file of the transaction log together with a summary of what is in it:
+ * - the number of rows and the lowest and highest transaction ID
+ * - the earliest and latest timestamp
+ * - a BloomFilter of every account ID that appears as source or destination
+ *
+ * A query can check the summary first and skip the whole file if it cannot contain a match
+ * (see StatementFilter.mightMatch).
+ *
+ * The summary is saved next to the segment as "<segment file>.summary" once the segment is
+ * full (sealed). The saved summary records the size of the segment file, so if the file
+ * changed afterwards the summary is ignored and rebuilt by reading the file once.
+ */
+public class LogSegment {
+    private static final int BLOOM_HASHES = 4;
+
+    private final Path path;
+    private long bytes;
+    private long count;
+    private long minId = Long.MAX_VALUE;
+    private long maxId = Long.MIN_VALUE;
+    // null until the first row; MIN/MAX if a row had a timestamp that could not be read
+    private LocalDateTime minTime;
+    private LocalDateTime maxTime;
+    private final BloomFilter accounts;
+
+    private LogSegment(Path path, BloomFilter accounts) {
+        this.path = path;
+        this.accounts = accounts;
+    }
+
+    /**
+     * Creates the summary for a new, empty segment
+     * @param path The segment file
+     * @return The segment
+     */
+    public static LogSegment create(Path path) {
+        return new LogSegment(path, new BloomFilter(BankConfig.getLogBloomBits(), BLOOM_HASHES));
+    }
+
+    /**
+     * Opens a sealed segment, using its saved summary if it is still up to date
+     * Otherwise the summary is rebuilt from the file and saved again
+     * @param path The segment file
+     * @return The segment
+     * @throws IOException If the segment file cannot be read
+     */
+    public static LogSegment open(Path path) throws IOException {
+        LogSegment segment = readSummary(path);
+        if (segment == null) {
+            segment = scan(path);
+            segment.writeSummary();
+        }
+        return segment;
+    }
+
+    /**
+     * Builds the summary of a segment by reading every row of the file
+     * @param path The segment file
+     * @return The segment
+     * @throws IOException If the segment file cannot be read
+     */
+    public static LogSegment scan(Path path) throws IOException {
+        LogSegment segment = create(path);
+        try (TransactionLogReader reader = TransactionLogReader.open(path)) {
+            while (reader.next()) {
+                segment.add(reader.getTransactionId(), reader.getTimestamp(),
+                        reader.getFromAccount(), reader.getToAccount());
+            }
+        }
+        segment.bytes = Files.size(path);
+        return segment;
+    }
+
+    /**
+     * Adds a transaction that was just appended to the segment
+     * The bytes written for it are recorded separately with addBytes
+     * @param transaction The transaction
+     */
+    public void add(Transaction transaction) {
+        add(transaction.getTransactionId(), transaction.getTimestamp(),
+                transaction.getFromAccount(), transaction.getToAccount());
+    }
+
+    /**
+     * Records bytes appended to the segment file
+     * @param written The number of bytes
+     */
+    public void addBytes(long written) {
+        bytes += written;
+    }
+
+    private void add(long transactionId, String timestamp, String fromAccount, String toAccount) {
+        count++;
+        minId = Math.min(minId, transactionId);
+        maxId = Math.max(maxId, transactionId);
+        LocalDateTime time;
+        try {
+            time = LocalDateTime.parse(timestamp);
+        } catch (DateTimeParseException e) {
+            // The row cannot be placed in time, so this segment can never be skipped by date
+            minTime = LocalDateTime.MIN;
+            maxTime = LocalDateTime.MAX;
+            time = null;
+        }
+        if (time != null) {
+            if (minTime == null || time.isBefore(minTime)) {
+                minTime = time;
+            }
+            if (maxTime == null || time.isAfter(maxTime)) {
+                maxTime = time;
+            }
+        }
+        accounts.add(fromAccount);
+        accounts.add(toAccount);
+    }
+
+    /**
+     * Checks whether the segment might hold transactions from a date range
+     * @param from The earliest time (inclusive), or null for no lower limit
+     * @param to The latest time (exclusive), or null for no upper limit
+     * @return false if no transaction in the segment is in the range
+     */
+    public boolean overlapsTime(LocalDateTime from, LocalDateTime to) {
+        if (minTime == null) {
+            return false; // No rows yet
+        }
+        return (from == null || !maxTime.isBefore(from)) && (to == null || minTime.isBefore(to));
+    }
+
+    /**
+     * Checks whether the segment might hold transaction IDs from a range
+     * @param low The lowest ID (inclusive)
+     * @param high The highest ID (inclusive)
+     * @return false if no transaction in the segment has an ID in the range
+     */
+    public boolean overlapsIds(long low, long high) {
+        return count > 0 && minId <= high && maxId >= low;
+    }
+
+    /**
+     * Checks whether an account might appear in the segment
+     * @param accountID The account ID
+     * @return false if the account is definitely not in the segment
+     */
+    public boolean mightContainAccount(String accountID) {
+        return count > 0 && accounts.mightContain(accountID);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The highest transaction ID in the segment, or 0 if it is empty
+     */
+    public long getMaxId() {
+        return count > 0 ? maxId : 0;
+    }
+
+    /**
+     * Saves the summary next to the segment file
+     * @return true if successful, false otherwise
+     */
+    public boolean writeSummary() {
+        Properties summary = new Properties();
+        summary.setProperty("bytes", Long.toString(bytes));
+        summary.setProperty("count", Long.toString(count));
+        summary.setProperty("minId", Long.toString(minId));
+        summary.setProperty("maxId", Long.toString(maxId));
+        if (minTime != null) {
+            summary.setProperty("minTime", minTime.toString());
+            summary.setProperty("maxTime", maxTime.toString());
+        }
+        summary.setProperty("bloomHashes", Integer.toString(accounts.getHashes()));
+        summary.setProperty("bloom", Base64.getEncoder().encodeToString(accounts.toBytes()));
+
+        Path file = summaryPath(path);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                summary.store(out, "Summary of " + path.getFileName());
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error saving segment summary: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Reads the saved summary of a segment
+     * @return The segment, or null if there is no summary or it does not match the file any more
+     */
+    private static LogSegment readSummary(Path path) throws IOException {
+        Path file = summaryPath(path);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        Properties summary = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            summary.load(in);
+        }
+        try {
+            long bytes = Long.parseLong(summary.getProperty("bytes"));
+            if (bytes != Files.size(path)) {
+                return null; // The segment changed after the summary was saved
+            }
+            BloomFilter accounts = BloomFilter.fromBytes(Base64.getDecoder().decode(summary.getProperty("bloom")),
+                    Integer.parseInt(summary.getProperty("bloomHashes")));
+            if (accounts == null) {
+                return null;
+            }
+            LogSegment segment = new LogSegment(path, accounts);
+            segment.bytes = bytes;
+            segment.count = Long.parseLong(summary.getProperty("count"));
+            segment.minId = Long.parseLong(summary.getProperty("minId"));
+            segment.maxId = Long.parseLong(summary.getProperty("maxId"));
+            if (summary.getProperty("minTime") != null) {
+                segment.minTime = LocalDateTime.parse(summary.getProperty("minTime"));
+                segment.maxTime = LocalDateTime.parse(summary.getProperty("maxTime"));
+            }
+            return segment;
+        } catch (RuntimeException e) {
+            System.err.println("Ignoring unreadable segment summary " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Path summaryPath(Path segment) {
+        return segment.resolveSibling(segment.getFileName() + ".summary");
+    }
+}
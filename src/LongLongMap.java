@@ -0,0 +1,178 @@
+import java.util.Arrays;
+
+/**
+ * LongLongMap maps long keys to long values (e.g. transaction ID to position) with no
+ * boxing and no per-entry objects.
+ *
+ * Keys and values are kept in two long[] arrays (open addressing with linear probing,
+ * at most half full). Key 0 marks an empty slot, so an entry with key 0 is kept in its
+ * own field. get() returns the "no value" given to the constructor for missing keys.
+ *
+ * Not thread-safe: callers that share a map between threads must lock around it.
+ */
+public class LongLongMap {
+    private final long noValue;
+    private long[] keys;
+    private long[] values;
+    private int size;
+    private int mask;
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    /**
+     * Creates a map that returns -1 for missing keys
+     */
+    public LongLongMap() {
+        this(16, -1);
+    }
+
+    /**
+     * Creates a map
+     * @param expectedSize How many entries the map will likely hold
+     * @param noValue What get() returns for a key that is not in the map
+     */
+    public LongLongMap(int expectedSize, long noValue) {
+        this.noValue = noValue;
+        allocate(tableSize(expectedSize));
+    }
+
+    /**
+     * Gets the value for a key
+     * @param key The key to look up
+     * @return The value, or the map's "no value" if the key is not in the map
+     */
+    public long get(long key) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : noValue;
+        }
+        int slot = find(key);
+        return slot < 0 ? noValue : values[slot];
+    }
+
+    public boolean containsKey(long key) {
+        return key == 0 ? hasZeroKey : find(key) >= 0;
+    }
+
+    /**
+     * Adds or replaces the value for a key
+     * @param key The key
+     * @param value The value
+     * @return The previous value, or the map's "no value" if the key was not in the map
+     */
+    public long put(long key, long value) {
+        if (key == 0) {
+            long previous = hasZeroKey ? zeroValue : noValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        int slot = slotOf(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                long previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        if (size * 2 > keys.length) {
+            grow();
+        }
+        return noValue;
+    }
+
+    /**
+     * Removes a key
+     * @param key The key to remove
+     * @return The value it had, or the map's "no value" if the key was not in the map
+     */
+    public long remove(long key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return noValue;
+            }
+            hasZeroKey = false;
+            size--;
+            return zeroValue;
+        }
+        int slot = find(key);
+        if (slot < 0) {
+            return noValue;
+        }
+        long previous = values[slot];
+        // Move later entries of the same probe run back, so no lookup stops early at the gap
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != 0) {
+            int home = slotOf(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = 0;
+        size--;
+        return previous;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        hasZeroKey = false;
+        size = 0;
+    }
+
+    private int find(long key) {
+        int slot = slotOf(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slotOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        size = hasZeroKey ? 1 : 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != 0) {
+                put(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    private void allocate(int tableSize) {
+        keys = new long[tableSize];
+        values = new long[tableSize];
+        mask = tableSize - 1;
+    }
+
+    private static int tableSize(int expectedSize) {
+        int wanted = Math.max(4, expectedSize) * 2;
+        return Integer.highestOneBit(wanted - 1) << 1;
+    }
+}
@@ -3,7 +3,7 @@ import java.util.*;
 public class Main {
     static Scanner scanner = new Scanner(System.in);
     static Map<String, User> users = new HashMap<>();
-    static Map<Integer, BankAccount> accounts = new HashMap<>();
+    static IntObjectMap<BankAccount> accounts = new IntObjectMap<>();
 
     public static void main(String[] args) {
         System.out.println("Welcome to the Bank System");
@@ -136,6 +136,7 @@ public class Main {
                         break;
                     }
                     account.deposit(deposit);
+                    Log.flush();
                     TransactionLogger.log(new Transaction(account.getAccountID(), "-", deposit, "DEPOSIT", "User deposit"));
                     break;
                 case "2":
@@ -152,6 +153,7 @@ public class Main {
                         break;
                     }
                     account.withdraw(withdraw);
+                    Log.flush();
                     TransactionLogger.log(new Transaction(account.getAccountID(), "-", withdraw, "WITHDRAW", "User withdrawal"));
                     break;
                 case "3":
@@ -0,0 +1,289 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics counts what the banking system does and how long it takes.
+ *
+ * - Counter: a running total, e.g. the number of failed transfers
+ * - Histogram: operation latencies, kept in log-linear buckets (8 buckets per power of two,
+ *   like HdrHistogram), so any percentile is known to within about 12% without storing
+ *   every sample
+ * Recording is one LongAdder increment, so threads recording at the same time do not
+ * slow each other down.
+ *
+ * Classes create their metrics once and keep them in static fields:
+ *   private static final Metrics.Histogram DEPOSIT = Metrics.histogram("deposit", "Deposit latency");
+ *   long start = System.nanoTime();
+ *   ...
+ *   DEPOSIT.recordSince(start);
+ * Metrics recorded by several classes (CSV_READ, CSV_WRITE) are declared here instead.
+ *
+ * writeTo() writes every metric in the Prometheus text format. With -Dbank.metrics.intervalMs
+ * set, the metrics are also written to bank.metrics.file on that interval and at shutdown.
+ */
+public class Metrics {
+    private static final String PREFIX = "bank_";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService dumper;
+
+    // Shared by every CSV-backed repository (accounts, users and the transaction log)
+    public static final Histogram CSV_READ = histogram("csv_read", "Time to read a CSV file");
+    public static final Histogram CSV_WRITE = histogram("csv_write", "Time to write to a CSV file or journal");
+
+    /**
+     * A running total
+     */
+    public static class Counter {
+        private final String help;
+        private final LongAdder count = new LongAdder();
+
+        private Counter(String help) {
+            this.help = help;
+        }
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long amount) {
+            count.add(amount);
+        }
+
+        public long get() {
+            return count.sum();
+        }
+    }
+
+    /**
+     * A latency histogram in nanoseconds
+     * Values below 8 get their own bucket; above that each power of two is split into 8 buckets
+     */
+    public static class Histogram {
+        private static final int SUB_BUCKETS = 8;
+        private static final int BUCKETS = (63 - 2) * SUB_BUCKETS;
+
+        private final String help;
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+
+        private Histogram(String help) {
+            this.help = help;
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Records one operation
+         * @param nanos How long it took in nanoseconds
+         */
+        public void record(long nanos) {
+            long value = Math.max(0, nanos);
+            buckets[bucketOf(value)].increment();
+            count.increment();
+            sum.add(value);
+        }
+
+        /**
+         * Records one operation that started at the given System.nanoTime()
+         * @param startNanos The start time
+         */
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Gets a percentile of the recorded latencies
+         * @param quantile Between 0 and 1, e.g. 0.99 for the 99th percentile
+         * @return The upper end of the bucket holding that percentile, in nanoseconds (0 if empty)
+         */
+        public long percentile(double quantile) {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            return percentile(counts, total, quantile);
+        }
+
+        private static long percentile(long[] counts, long total, double quantile) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(counts.length - 1);
+        }
+
+        private static int bucketOf(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+            return (exponent - 2) * SUB_BUCKETS + sub;
+        }
+
+        private static long upperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int exponent = bucket / SUB_BUCKETS + 2;
+            long width = 1L << (exponent - 3);
+            return (SUB_BUCKETS + bucket % SUB_BUCKETS) * width + width - 1;
+        }
+    }
+
+    /**
+     * Gets a counter, creating it the first time
+     * @param name The metric name, lowercase with underscores (written with a "bank_" prefix)
+     * @param help A short description
+     * @return The counter
+     */
+    public static Counter counter(String name, String help) {
+        startDumper();
+        return counters.computeIfAbsent(name, n -> new Counter(help));
+    }
+
+    /**
+     * Gets a latency histogram, creating it the first time
+     * @param name The metric name, lowercase with underscores (written with a "bank_" prefix)
+     * @param help A short description
+     * @return The histogram
+     */
+    public static Histogram histogram(String name, String help) {
+        startDumper();
+        return histograms.computeIfAbsent(name, n -> new Histogram(help));
+    }
+
+    /**
+     * Writes every metric in the Prometheus text format
+     * Counters become "bank_<name>_total"; histograms become summaries in seconds
+     * ("bank_<name>_seconds" with quantiles, _sum and _count)
+     * @param out Where to write the metrics
+     */
+    public static void writeTo(Writer out) {
+        PrintWriter writer = new PrintWriter(out);
+        for (Map.Entry<String, Counter> entry : new TreeMap<>(counters).entrySet()) {
+            String name = PREFIX + entry.getKey() + "_total";
+            writer.printf("# HELP %s %s%n", name, entry.getValue().help);
+            writer.printf("# TYPE %s counter%n", name);
+            writer.printf("%s %d%n", name, entry.getValue().get());
+        }
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+            String name = PREFIX + entry.getKey() + "_seconds";
+            Histogram histogram = entry.getValue();
+            // Read the buckets once, so every line of this metric comes from the same snapshot
+            long[] counts = new long[Histogram.BUCKETS];
+            long total = 0;
+            for (int i = 0; i < Histogram.BUCKETS; i++) {
+                counts[i] = histogram.buckets[i].sum();
+                total += counts[i];
+            }
+            writer.printf("# HELP %s %s%n", name, histogram.help);
+            writer.printf("# TYPE %s summary%n", name);
+            for (double quantile : QUANTILES) {
+                writer.printf("%s{quantile=\"%s\"} %s%n", name, quantile,
+                        seconds(Histogram.percentile(counts, total, quantile)));
+            }
+            writer.printf("%s_sum %s%n", name, seconds(histogram.sum.sum()));
+            writer.printf("%s_count %d%n", name, total);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Gets a short table of every histogram's count and percentiles, for printing to the console
+     * @return The report
+     */
+    public static String report() {
+        StringWriter text = new StringWriter();
+        PrintWriter writer = new PrintWriter(text);
+        writer.printf("%-20s %10s %12s %12s %12s %12s%n", "Operation", "Count", "p50 (us)", "p90 (us)", "p99 (us)", "p99.9 (us)");
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+            Histogram histogram = entry.getValue();
+            writer.printf("%-20s %10d %12.1f %12.1f %12.1f %12.1f%n", entry.getKey(), histogram.getCount(),
+                    histogram.percentile(0.5) / 1e3, histogram.percentile(0.9) / 1e3,
+                    histogram.percentile(0.99) / 1e3, histogram.percentile(0.999) / 1e3);
+        }
+        for (Map.Entry<String, Counter> entry : new TreeMap<>(counters).entrySet()) {
+            writer.printf("%-20s %10d%n", entry.getKey(), entry.getValue().get());
+        }
+        writer.flush();
+        return text.toString();
+    }
+
+    /**
+     * Writes every metric to a file (replacing it), in the Prometheus text format
+     * @param file The file to write
+     * @return true if successful, false otherwise
+     */
+    public static boolean dump(Path file) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writeTo(out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error writing metrics: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Starts writing the metrics file on a timer the first time a metric is created,
+     * if bank.metrics.intervalMs is set
+     */
+    private static synchronized void startDumper() {
+        long interval = BankConfig.getMetricsIntervalMillis();
+        if (dumper != null || interval <= 0) {
+            return;
+        }
+        Path file = Paths.get(BankConfig.getMetricsFile());
+        dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> dump(file), interval, interval, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> dump(file), "metrics-shutdown"));
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+}
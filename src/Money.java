@@ -0,0 +1,110 @@
+/**
+ * Money holds the helpers for working with amounts of money stored as whole cents in a long.
+ *
+ * A double cannot store most cent values exactly (0.10 is really 0.1000000000000000055...),
+ * so balances that are added to and subtracted from over and over slowly drift.
+ * Keeping amounts as a count of cents makes every addition and subtraction exact,
+ * and formatting or parsing never has to round.
+ *
+ * Examples: $12.34 is stored as 1234, -$0.50 is stored as -50.
+ */
+public class Money {
+
+    /**
+     * Converts a dollar amount to cents, rounding to the nearest cent
+     * Used where amounts come in as doubles (user input, interest rates)
+     * @param amount The amount in dollars
+     * @return The amount in cents
+     */
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    /**
+     * Converts cents to a dollar amount for display or for older code that uses doubles
+     * @param cents The amount in cents
+     * @return The amount in dollars
+     */
+    public static double toDouble(long cents) {
+        return cents / 100.0;
+    }
+
+    /**
+     * Parses an amount such as "123.45", "-0.5" or "7" into cents without going through a double
+     * Digits after the second decimal are rounded half up
+     * @param text The amount to parse
+     * @return The amount in cents
+     * @throws NumberFormatException If the text is not a valid amount
+     */
+    public static long parse(String text) {
+        String value = text.trim();
+        int i = 0;
+        boolean negative = false;
+        if (i < value.length() && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+
+        long whole = 0;
+        int digits = 0;
+        while (i < value.length() && Character.isDigit(value.charAt(i))) {
+            whole = Math.addExact(Math.multiplyExact(whole, 10), value.charAt(i) - '0');
+            i++;
+            digits++;
+        }
+
+        long cents = 0;
+        int decimals = 0;
+        boolean roundUp = false;
+        if (i < value.length() && value.charAt(i) == '.') {
+            i++;
+            while (i < value.length() && Character.isDigit(value.charAt(i))) {
+                if (decimals < 2) {
+                    cents = cents * 10 + (value.charAt(i) - '0');
+                } else if (decimals == 2) {
+                    roundUp = value.charAt(i) >= '5';
+                }
+                i++;
+                decimals++;
+            }
+        }
+
+        if (i != value.length() || (digits == 0 && decimals == 0)) {
+            throw new NumberFormatException("Invalid amount: \"" + text + "\"");
+        }
+        if (decimals == 1) {
+            cents *= 10;
+        }
+        long total = Math.addExact(Math.multiplyExact(whole, 100), cents + (roundUp ? 1 : 0));
+        return negative ? -total : total;
+    }
+
+    /**
+     * Formats cents as a plain amount with two decimals, e.g. 1234 becomes "12.34"
+     * @param cents The amount in cents
+     * @return The formatted amount
+     */
+    public static String format(long cents) {
+        return appendTo(new StringBuilder(16), cents).toString();
+    }
+
+    /**
+     * Appends cents as a plain amount with two decimals to a StringBuilder
+     * Used when building CSV rows, so no temporary String is created
+     * @param sb The builder to append to
+     * @param cents The amount in cents
+     * @return The same builder
+     */
+    public static StringBuilder appendTo(StringBuilder sb, long cents) {
+        if (cents < 0) {
+            sb.append('-');
+        }
+        long abs = Math.abs(cents);
+        long fraction = abs % 100;
+        sb.append(abs / 100).append('.');
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        return sb.append(fraction);
+    }
+}
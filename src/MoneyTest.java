@@ -0,0 +1,82 @@
+/*
+ * Test class for Money
+ * Checks the conversions between dollars and cents, and that parse rounds the way its comment says
+ * Prints PASS or FAIL for every check and exits with status 1 if any check failed
+ */
+
+public class MoneyTest {
+    private static int failures = 0;
+
+    public static void main(String[] args) {
+        System.out.println("=== Starting Money Test ===\n");
+
+        // Test 1: Parsing plain amounts
+        // Whole amounts, one decimal and two decimals all come out as exact cents
+        System.out.println("Test 1: Parsing plain amounts");
+        check("\"123.45\" is 12345 cents", Money.parse("123.45") == 12345);
+        check("\"7\" is 700 cents", Money.parse("7") == 700);
+        check("\"0.5\" is 50 cents", Money.parse("0.5") == 50);
+        check("\".25\" is 25 cents", Money.parse(".25") == 25);
+        check("\" 12.00 \" is 1200 cents (spaces are trimmed)", Money.parse(" 12.00 ") == 1200);
+        check("\"+3.10\" is 310 cents", Money.parse("+3.10") == 310);
+        check("\"-0.5\" is -50 cents", Money.parse("-0.5") == -50);
+        System.out.println();
+
+        // Test 2: Rounding past the second decimal
+        // The third decimal decides, half up, and only the third decimal counts
+        System.out.println("Test 2: Rounding past the second decimal");
+        check("\"0.125\" rounds up to 13 cents", Money.parse("0.125") == 13);
+        check("\"0.124\" rounds down to 12 cents", Money.parse("0.124") == 12);
+        check("\"0.1249999\" rounds down to 12 cents", Money.parse("0.1249999") == 12);
+        check("\"0.995\" rounds up to 100 cents", Money.parse("0.995") == 100);
+        check("\"19.999\" rounds up to 2000 cents", Money.parse("19.999") == 2000);
+        check("\"-0.125\" rounds away from zero to -13 cents", Money.parse("-0.125") == -13);
+        // A double would get these wrong: 1.005 is stored as 1.00499999999999989...
+        check("\"1.005\" rounds up to 101 cents (no double in between)", Money.parse("1.005") == 101);
+        check("\"92233720368547758.07\" is Long.MAX_VALUE cents", Money.parse("92233720368547758.07") == Long.MAX_VALUE);
+        System.out.println();
+
+        // Test 3: Invalid amounts
+        // Anything that is not a number is refused instead of read as 0
+        System.out.println("Test 3: Invalid amounts");
+        checkInvalid("");
+        checkInvalid("-");
+        checkInvalid(".");
+        checkInvalid("12.3.4");
+        checkInvalid("1,000.00");
+        checkInvalid("$5");
+        checkInvalid("1e3");
+        System.out.println();
+
+        // Test 4: Converting doubles and formatting
+        // toCents rounds to the nearest cent, format always prints two decimals
+        System.out.println("Test 4: Converting doubles and formatting");
+        check("toCents(0.1 + 0.2) is 30", Money.toCents(0.1 + 0.2) == 30);
+        check("toCents(1.005) is 100 (the double is just under 1.005)", Money.toCents(1.005) == 100);
+        check("toDouble(1234) is 12.34", Money.toDouble(1234) == 12.34);
+        check("format(1234) is \"12.34\"", Money.format(1234).equals("12.34"));
+        check("format(5) is \"0.05\"", Money.format(5).equals("0.05"));
+        check("format(-50) is \"-0.50\"", Money.format(-50).equals("-0.50"));
+        check("parse(format(x)) gives x back", Money.parse(Money.format(-987654321)) == -987654321);
+        System.out.println();
+
+        System.out.println("=== Money Test Complete: " + (failures == 0 ? "all checks passed" : failures + " check(s) failed") + " ===");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static void checkInvalid(String text) {
+        try {
+            long cents = Money.parse(text);
+            check("\"" + text + "\" is refused (got " + cents + ")", false);
+        } catch (NumberFormatException e) {
+            check("\"" + text + "\" is refused", true);
+        }
+    }
+
+    private static void check(String name, boolean passed) {
+        System.out.println((passed ? "PASS  " : "FAIL  ") + name);
+        if (!passed) {
+            failures++;
+        }
+    }
+}
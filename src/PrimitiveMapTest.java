@@ -0,0 +1,187 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/*
+ * Test class for IntObjectMap, LongLongMap and StringIntMap
+ * Removing from an open addressing map shifts the later entries of the probe run back into
+ * the gap; if that goes wrong, keys after the gap are lost even though they are still stored.
+ * Each map is run through random puts and removes next to a HashMap, and after every removal
+ * every key that should still be there is looked up.
+ * Prints PASS or FAIL for every check and exits with status 1 if any check failed
+ */
+
+public class PrimitiveMapTest {
+    private static int failures = 0;
+
+    public static void main(String[] args) {
+        System.out.println("=== Starting Primitive Map Test ===\n");
+
+        // Test 1: IntObjectMap removal in the middle of probe runs
+        // A small key range in a small map gives long runs that wrap around the end of the table
+        System.out.println("Test 1: IntObjectMap remove shifts later entries back");
+        check("filled and emptied in random order", intObjectMapSurvivesRemovals(new Random(1), 200, 2));
+        check("random puts and removes", intObjectMapRandomOps(new Random(2), 20000, 64));
+        check("negative and extreme keys", intObjectMapRandomOps(new Random(3), 5000, -1));
+        System.out.println();
+
+        // Test 2: IntObjectMap basics
+        System.out.println("Test 2: IntObjectMap basics");
+        IntObjectMap<String> map = new IntObjectMap<>();
+        check("get of a missing key is null", map.get(42) == null);
+        check("put returns null for a new key", map.put(42, "a") == null);
+        check("put returns the old value when replacing", "a".equals(map.put(42, "b")));
+        check("size counts keys, not puts", map.size() == 1);
+        check("remove returns the value", "b".equals(map.remove(42)));
+        check("remove of a missing key is null", map.remove(42) == null);
+        check("empty after removing everything", map.isEmpty());
+        boolean refused = false;
+        try {
+            map.put(1, null);
+        } catch (IllegalArgumentException e) {
+            refused = true;
+        }
+        check("null values are refused", refused);
+        System.out.println();
+
+        // Test 3: LongLongMap removal
+        System.out.println("Test 3: LongLongMap remove shifts later entries back");
+        check("random puts and removes", longLongMapRandomOps(new Random(4), 20000, 64));
+        System.out.println();
+
+        // Test 4: StringIntMap removal
+        System.out.println("Test 4: StringIntMap remove shifts later entries back");
+        check("random puts and removes", stringIntMapRandomOps(new Random(5), 20000, 64));
+        System.out.println();
+
+        System.out.println("=== Primitive Map Test Complete: " + (failures == 0 ? "all checks passed" : failures + " check(s) failed") + " ===");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * Fills a map, then removes the keys one by one in random order,
+     * looking up every remaining key after each removal
+     */
+    private static boolean intObjectMapSurvivesRemovals(Random random, int count, int expectedSize) {
+        IntObjectMap<Integer> map = new IntObjectMap<>(expectedSize);
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int key = random.nextInt(count * 4);
+            if (!keys.contains(key)) {
+                keys.add(key);
+                map.put(key, key * 10);
+            }
+        }
+        Collections.shuffle(keys, random);
+        for (int i = 0; i < keys.size(); i++) {
+            if (map.remove(keys.get(i)) == null || map.containsKey(keys.get(i))) {
+                return false;
+            }
+            for (int j = i + 1; j < keys.size(); j++) {
+                Integer value = map.get(keys.get(j));
+                if (value == null || value != keys.get(j) * 10) {
+                    return false;
+                }
+            }
+        }
+        return map.isEmpty();
+    }
+
+    /**
+     * Random puts and removes against a HashMap
+     * @param keyRange Keys are drawn from 0 to keyRange - 1, or from all ints if keyRange is -1
+     */
+    private static boolean intObjectMapRandomOps(Random random, int operations, int keyRange) {
+        IntObjectMap<Integer> map = new IntObjectMap<>(4);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < operations; i++) {
+            int key = keyRange < 0 ? random.nextInt() : random.nextInt(keyRange);
+            if (keyRange < 0 && i % 100 == 0) {
+                key = i % 200 == 0 ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+            }
+            if (random.nextInt(3) == 0) {
+                if (!equal(map.remove(key), expected.remove(key))) {
+                    return false;
+                }
+                for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+                    if (!entry.getValue().equals(map.get(entry.getKey()))) {
+                        return false;
+                    }
+                }
+            } else if (!equal(map.put(key, i), expected.put(key, i))) {
+                return false;
+            }
+            if (map.size() != expected.size()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean longLongMapRandomOps(Random random, int operations, int keyRange) {
+        LongLongMap map = new LongLongMap();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < operations; i++) {
+            // Spread the keys apart, like transaction IDs from different runs
+            long key = random.nextInt(keyRange) * 1_000_003L;
+            if (random.nextInt(3) == 0) {
+                Long removed = expected.remove(key);
+                if (map.remove(key) != (removed == null ? -1 : removed)) {
+                    return false;
+                }
+                for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+                    if (map.get(entry.getKey()) != entry.getValue()) {
+                        return false;
+                    }
+                }
+            } else {
+                map.put(key, i);
+                expected.put(key, (long) i);
+            }
+            if (map.size() != expected.size() || map.containsKey(key) != expected.containsKey(key)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean stringIntMapRandomOps(Random random, int operations, int keyRange) {
+        StringIntMap map = new StringIntMap();
+        Map<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < operations; i++) {
+            String key = "acct-" + random.nextInt(keyRange);
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(key);
+                if (map.remove(key) != (removed == null ? -1 : removed)) {
+                    return false;
+                }
+                for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+                    if (map.get(entry.getKey()) != entry.getValue()) {
+                        return false;
+                    }
+                }
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+            if (map.size() != expected.size() || map.containsKey(key) != expected.containsKey(key)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static void check(String name, boolean passed) {
+        System.out.println((passed ? "PASS  " : "FAIL  ") + name);
+        if (!passed) {
+            failures++;
+        }
+    }
+}
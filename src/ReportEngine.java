@@ -0,0 +1,453 @@
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * ReportEngine computes the admin reports over the whole book, using every CPU core.
+ *
+ * - Account reports (assets under management, top balances, APY tiers) run as parallel
+ *   streams over BankAccount.getAllAccounts(), each with a combiner that merges the
+ *   partial results of two threads. report() reads the accounts once and hands the same
+ *   list to every report, since with the binary and jdbc backends each read goes back to
+ *   the repository.
+ * - Transaction reports (net flow per user, most active accounts, daily volume by type)
+ *   scan a TransactionColumns snapshot. The rows are split in half on the ForkJoinPool until
+ *   a piece is small enough, each piece fills a long[] of totals, and the halves are added
+ *   together on the way back up.
+ */
+public class ReportEngine {
+    // Below this many rows a piece of the log is scanned by one thread
+    private static final int SPLIT_ROWS = 64 * 1024;
+    // Largest (day, type) array a piece of the daily volume report may allocate (512 KB)
+    private static final long MAX_DENSE_CELLS = 64 * 1024;
+
+    /**
+     * Money held by the bank, by account type
+     */
+    public static class Assets {
+        private long checkingCents;
+        private long savingsCents;
+        private int checkingAccounts;
+        private int savingsAccounts;
+
+        void add(BankAccount account) {
+            if (account.getAccountType().equals("SAVING")) {
+                savingsCents += account.getBalanceCents();
+                savingsAccounts++;
+            } else {
+                checkingCents += account.getBalanceCents();
+                checkingAccounts++;
+            }
+        }
+
+        void combine(Assets other) {
+            checkingCents += other.checkingCents;
+            savingsCents += other.savingsCents;
+            checkingAccounts += other.checkingAccounts;
+            savingsAccounts += other.savingsAccounts;
+        }
+
+        public long getCheckingCents() {
+            return checkingCents;
+        }
+
+        public long getSavingsCents() {
+            return savingsCents;
+        }
+
+        public long getTotalCents() {
+            return checkingCents + savingsCents;
+        }
+
+        public int getCheckingAccounts() {
+            return checkingAccounts;
+        }
+
+        public int getSavingsAccounts() {
+            return savingsAccounts;
+        }
+    }
+
+    /**
+     * An account ID with a number, e.g. how many transactions it took part in
+     */
+    public static class AccountCount {
+        private final String accountID;
+        private final long count;
+
+        AccountCount(String accountID, long count) {
+            this.accountID = accountID;
+            this.count = count;
+        }
+
+        public String getAccountID() {
+            return accountID;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * One scan over a range of rows, producing an array of totals
+     * The arrays of two ranges are combined by adding them element by element
+     */
+    private interface RangeScan {
+        long[] scan(TransactionColumns.Snapshot snapshot, int start, int end);
+    }
+
+    /**
+     * Splits the rows in half until a piece is small enough to scan, then adds the results
+     */
+    private static class ScanTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        // ForkJoinTask is Serializable, but these tasks only ever run inside this program
+        private final transient TransactionColumns.Snapshot snapshot;
+        private final transient RangeScan scan;
+        private final int start;
+        private final int end;
+
+        ScanTask(TransactionColumns.Snapshot snapshot, RangeScan scan, int start, int end) {
+            this.snapshot = snapshot;
+            this.scan = scan;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (end - start <= SPLIT_ROWS) {
+                return scan.scan(snapshot, start, end);
+            }
+            int middle = (start + end) >>> 1;
+            ScanTask left = new ScanTask(snapshot, scan, start, middle);
+            left.fork();
+            long[] right = new ScanTask(snapshot, scan, middle, end).compute();
+            long[] total = left.join();
+            for (int i = 0; i < total.length; i++) {
+                total[i] += right[i];
+            }
+            return total;
+        }
+    }
+
+    private static long[] scanAll(TransactionColumns.Snapshot snapshot, RangeScan scan) {
+        return ForkJoinPool.commonPool().invoke(new ScanTask(snapshot, scan, 0, snapshot.size()));
+    }
+
+    /**
+     * Adds up the balances of every account
+     * @return The totals by account type
+     */
+    public static Assets assetsUnderManagement() {
+        return assetsUnderManagement(BankAccount.getAllAccounts());
+    }
+
+    private static Assets assetsUnderManagement(List<BankAccount> accounts) {
+        return accounts.parallelStream()
+                .collect(Assets::new, Assets::add, Assets::combine);
+    }
+
+    /**
+     * Finds the accounts with the largest balances
+     * Each thread keeps only its own top n, so the whole book is never sorted
+     * @param n How many accounts to return
+     * @return The accounts, largest balance first
+     */
+    public static List<BankAccount> topAccountsByBalance(int n) {
+        return topAccountsByBalance(BankAccount.getAllAccounts(), n);
+    }
+
+    private static List<BankAccount> topAccountsByBalance(List<BankAccount> accounts, int n) {
+        Comparator<BankAccount> byBalance = Comparator.comparingLong(BankAccount::getBalanceCents);
+        return accounts.parallelStream().collect(topN(n, byBalance));
+    }
+
+    /**
+     * Counts the savings accounts in each APY tier
+     * @return Number of accounts per APY (as a decimal, e.g. 0.05), lowest tier first
+     */
+    public static TreeMap<Double, Long> apyTiers() {
+        return apyTiers(BankAccount.getAllAccounts());
+    }
+
+    private static TreeMap<Double, Long> apyTiers(List<BankAccount> accounts) {
+        return accounts.parallelStream()
+                .filter(account -> account instanceof SavingsAccount)
+                .collect(Collectors.groupingBy(account -> ((SavingsAccount) account).getAPY(),
+                        TreeMap::new, Collectors.counting()));
+    }
+
+    /**
+     * Works out how much money moved into each user's accounts minus how much moved out,
+     * over the whole transaction log
+     * Money moving between two accounts of the same user cancels out
+     * @return Net flow in cents per user ID (users with no transactions are left out)
+     */
+    public static TreeMap<Integer, Long> netFlowsByUser() {
+        return netFlowsByUser(BankAccount.getAllAccounts());
+    }
+
+    private static TreeMap<Integer, Long> netFlowsByUser(List<BankAccount> accounts) {
+        TransactionColumns.Snapshot snapshot = TransactionColumns.snapshot();
+        // The older console menu logs deposits as account -> "-", so those credit the "from" account
+        int dash = snapshot.accountCode("-");
+        boolean[] deposit = new boolean[snapshot.typeCount()];
+        for (int type = 0; type < deposit.length; type++) {
+            deposit[type] = snapshot.typeName(type).contains("DEPOSIT");
+        }
+        long[] flows = scanAll(snapshot, (columns, start, end) -> {
+            long[] net = new long[columns.accountCount()];
+            for (int row = start; row < end; row++) {
+                long cents = columns.getCents(row);
+                if (deposit[columns.getType(row)] && columns.getTo(row) == dash) {
+                    net[columns.getFrom(row)] += cents;
+                } else {
+                    net[columns.getFrom(row)] -= cents;
+                    net[columns.getTo(row)] += cents;
+                }
+            }
+            return net;
+        });
+
+        StringIntMap owners = new StringIntMap(flows.length, -1);
+        for (BankAccount account : accounts) {
+            owners.put(account.getAccountID(), account.getUserID());
+        }
+        TreeMap<Integer, Long> byUser = new TreeMap<>();
+        for (int code = 0; code < flows.length; code++) {
+            int userID = owners.get(snapshot.accountName(code));
+            if (userID >= 0) { // Skips SYSTEM and other accounts that are not in the store
+                byUser.merge(userID, flows[code], Long::sum);
+            }
+        }
+        return byUser;
+    }
+
+    /**
+     * Finds the accounts that took part in the most transactions
+     * @param n How many accounts to return
+     * @return The accounts, most transactions first
+     */
+    public static List<AccountCount> topAccountsByActivity(int n) {
+        TransactionColumns.Snapshot snapshot = TransactionColumns.snapshot();
+        long[] counts = scanAll(snapshot, (columns, start, end) -> {
+            long[] rows = new long[columns.accountCount()];
+            for (int row = start; row < end; row++) {
+                rows[columns.getFrom(row)]++;
+                if (columns.getTo(row) != columns.getFrom(row)) {
+                    rows[columns.getTo(row)]++;
+                }
+            }
+            return rows;
+        });
+        int system = snapshot.accountCode("SYSTEM");
+        int dash = snapshot.accountCode("-");
+        return IntStream.range(0, counts.length).parallel()
+                .filter(code -> code != system && code != dash && counts[code] > 0)
+                .mapToObj(code -> new AccountCount(snapshot.accountName(code), counts[code]))
+                .collect(topN(n, Comparator.comparingLong(AccountCount::getCount)));
+    }
+
+    /**
+     * Adds up the amount moved each day, by transaction type
+     * When the log covers a short enough span of days, each piece adds into one flat array
+     * of (day, type) totals. A wider span (years of history, or a single bad timestamp far
+     * from the rest) would make that array huge in every piece, so then each piece keeps a
+     * map of only the days it actually saw
+     * @return For each day (oldest first), cents per transaction type
+     */
+    public static TreeMap<LocalDate, Map<String, Long>> dailyVolumesByType() {
+        TransactionColumns.Snapshot snapshot = TransactionColumns.snapshot();
+        TreeMap<LocalDate, Map<String, Long>> byDay = new TreeMap<>();
+        LongSummaryStatistics range = IntStream.range(0, snapshot.size()).parallel()
+                .mapToLong(snapshot::getTime)
+                .filter(time -> time != TransactionColumns.NO_TIME)
+                .summaryStatistics();
+        if (range.getCount() == 0) {
+            return byDay;
+        }
+        int types = snapshot.typeCount();
+        long firstDay = TransactionColumns.dayOf(range.getMin());
+        long spanDays = TransactionColumns.dayOf(range.getMax()) - firstDay + 1;
+
+        TreeMap<Long, long[]> totals = spanDays * types <= MAX_DENSE_CELLS
+                ? denseDailyTotals(snapshot, firstDay, (int) spanDays, types)
+                : sparseDailyTotals(snapshot, types);
+
+        for (Map.Entry<Long, long[]> day : totals.entrySet()) {
+            Map<String, Long> byType = new TreeMap<>();
+            for (int type = 0; type < types; type++) {
+                if (day.getValue()[type] != 0) {
+                    byType.put(snapshot.typeName(type), day.getValue()[type]);
+                }
+            }
+            if (!byType.isEmpty()) {
+                byDay.put(LocalDate.ofEpochDay(day.getKey()), byType);
+            }
+        }
+        return byDay;
+    }
+
+    /**
+     * Daily totals with one flat (day, type) array per piece of the log
+     * @return Cents per type code, by epoch day
+     */
+    private static TreeMap<Long, long[]> denseDailyTotals(TransactionColumns.Snapshot snapshot,
+                                                          long firstDay, int days, int types) {
+        // One total per (day, type), laid out day by day
+        long[] totals = scanAll(snapshot, (columns, start, end) -> {
+            long[] volume = new long[days * types];
+            for (int row = start; row < end; row++) {
+                long time = columns.getTime(row);
+                if (time != TransactionColumns.NO_TIME) {
+                    int day = (int) (TransactionColumns.dayOf(time) - firstDay);
+                    volume[day * types + columns.getType(row)] += columns.getCents(row);
+                }
+            }
+            return volume;
+        });
+        TreeMap<Long, long[]> byDay = new TreeMap<>();
+        for (int day = 0; day < days; day++) {
+            byDay.put(firstDay + day, Arrays.copyOfRange(totals, day * types, (day + 1) * types));
+        }
+        return byDay;
+    }
+
+    /**
+     * Daily totals with a map of the days each piece of the log actually saw
+     * Rows are mostly in time order, so the map is only looked up when the day changes
+     * @return Cents per type code, by epoch day
+     */
+    private static TreeMap<Long, long[]> sparseDailyTotals(TransactionColumns.Snapshot snapshot, int types) {
+        int pieces = (snapshot.size() + SPLIT_ROWS - 1) / SPLIT_ROWS;
+        return IntStream.range(0, pieces).parallel()
+                .mapToObj(piece -> {
+                    TreeMap<Long, long[]> byDay = new TreeMap<>();
+                    int end = Math.min(snapshot.size(), (piece + 1) * SPLIT_ROWS);
+                    long currentDay = Long.MIN_VALUE;
+                    long[] current = null;
+                    for (int row = piece * SPLIT_ROWS; row < end; row++) {
+                        long time = snapshot.getTime(row);
+                        if (time == TransactionColumns.NO_TIME) {
+                            continue;
+                        }
+                        long day = TransactionColumns.dayOf(time);
+                        if (current == null || day != currentDay) {
+                            currentDay = day;
+                            current = byDay.computeIfAbsent(day, d -> new long[types]);
+                        }
+                        current[snapshot.getType(row)] += snapshot.getCents(row);
+                    }
+                    return byDay;
+                })
+                .reduce((left, right) -> {
+                    for (Map.Entry<Long, long[]> day : right.entrySet()) {
+                        long[] into = left.computeIfAbsent(day.getKey(), d -> new long[types]);
+                        for (int type = 0; type < types; type++) {
+                            into[type] += day.getValue()[type];
+                        }
+                    }
+                    return left;
+                })
+                .orElseGet(TreeMap::new);
+    }
+
+    /**
+     * Runs every report and lays them out for printing to the console
+     * @param topN How many accounts to list in the top-N reports
+     * @return The report text
+     */
+    public static String report(int topN) {
+        StringWriter text = new StringWriter();
+        PrintWriter out = new PrintWriter(text);
+
+        List<BankAccount> accounts = BankAccount.getAllAccounts();
+        Assets assets = assetsUnderManagement(accounts);
+        out.println("--- Assets Under Management ---");
+        out.printf("%-10s %8d accounts %18s%n", "Checking", assets.getCheckingAccounts(), dollars(assets.getCheckingCents()));
+        out.printf("%-10s %8d accounts %18s%n", "Savings", assets.getSavingsAccounts(), dollars(assets.getSavingsCents()));
+        out.printf("%-10s %8d accounts %18s%n", "Total", assets.getCheckingAccounts() + assets.getSavingsAccounts(),
+                dollars(assets.getTotalCents()));
+
+        out.println("\n--- Top " + topN + " Accounts by Balance ---");
+        for (BankAccount account : topAccountsByBalance(accounts, topN)) {
+            out.printf("%-20s %-8s %18s%n", account.getAccountID(), account.getAccountType(),
+                    dollars(account.getBalanceCents()));
+        }
+
+        out.println("\n--- Top " + topN + " Accounts by Activity ---");
+        for (AccountCount account : topAccountsByActivity(topN)) {
+            out.printf("%-20s %10d transactions%n", account.getAccountID(), account.getCount());
+        }
+
+        out.println("\n--- Savings APY Tiers ---");
+        for (Map.Entry<Double, Long> tier : apyTiers(accounts).entrySet()) {
+            out.printf("%5.2f%% APY %8d accounts%n", tier.getKey() * 100, tier.getValue());
+        }
+
+        out.println("\n--- Net Flow by User ---");
+        for (Map.Entry<Integer, Long> user : netFlowsByUser(accounts).entrySet()) {
+            out.printf("User %-8d %18s%n", user.getKey(), dollars(user.getValue()));
+        }
+
+        out.println("\n--- Daily Volume by Type ---");
+        for (Map.Entry<LocalDate, Map<String, Long>> day : dailyVolumesByType().entrySet()) {
+            for (Map.Entry<String, Long> type : day.getValue().entrySet()) {
+                out.printf("%s  %-12s %18s%n", day.getKey(), type.getKey(), dollars(type.getValue()));
+            }
+        }
+        out.flush();
+        return text.toString();
+    }
+
+    private static String dollars(long cents) {
+        return cents < 0 ? "-$" + Money.format(-cents) : "$" + Money.format(cents);
+    }
+
+    /**
+     * A collector that keeps the n largest items
+     * Each thread keeps a min-heap of at most n items; the combiner merges two heaps and
+     * trims the result back to n
+     */
+    private static <T> Collector<T, ?, List<T>> topN(int n, Comparator<T> order) {
+        return Collector.of(
+                () -> new PriorityQueue<>(order),
+                (heap, item) -> {
+                    heap.add(item);
+                    if (heap.size() > n) {
+                        heap.poll();
+                    }
+                },
+                (left, right) -> {
+                    for (T item : right) {
+                        left.add(item);
+                        if (left.size() > n) {
+                            left.poll();
+                        }
+                    }
+                    return left;
+                },
+                heap -> {
+                    List<T> largest = new ArrayList<>(heap);
+                    largest.sort(Collections.reverseOrder(order));
+                    return largest;
+                });
+    }
+}
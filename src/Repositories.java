@@ -0,0 +1,68 @@
+/**
+ * Repositories picks the storage backend for accounts, users and transactions.
+ *
+ * The backend is chosen with -Dbank.store.backend (see BankConfig.getStoreBackend):
+ *   csv     bank_accounts.csv + journal, users.csv, transaction log segments (default);
+ *           every account stays in memory, bank.store.cacheSize does not apply
+ *   binary  fixed-width memory-mapped accounts file; users and transactions stay in CSV
+ *   jdbc    tables in an embedded SQL database at -Dbank.jdbc.url
+ * Each repository is created once, the first time it is asked for. The instances live in
+ * holder classes, which the JVM initializes exactly once, so looking one up takes no lock
+ * (these lookups happen on every deposit, withdrawal, transfer and log batch).
+ * With the jdbc backend the database is opened when the first repository is created, and
+ * the program stops there if it cannot be opened.
+ */
+public class Repositories {
+
+    private static class AccountsHolder {
+        static final AccountRepository INSTANCE = createAccounts();
+    }
+
+    private static class UsersHolder {
+        static final UserRepository INSTANCE = createUsers();
+    }
+
+    private static class TransactionsHolder {
+        static final TransactionRepository INSTANCE = createTransactions();
+    }
+
+    public static AccountRepository accounts() {
+        return AccountsHolder.INSTANCE;
+    }
+
+    public static UserRepository users() {
+        return UsersHolder.INSTANCE;
+    }
+
+    public static TransactionRepository transactions() {
+        return TransactionsHolder.INSTANCE;
+    }
+
+    private static AccountRepository createAccounts() {
+        switch (BankConfig.getStoreBackend()) {
+            case "binary":
+                return new BinaryAccountRepository();
+            case "jdbc":
+                JdbcDatabase.open();
+                return new JdbcAccountRepository();
+            default:
+                return new CsvAccountRepository();
+        }
+    }
+
+    private static UserRepository createUsers() {
+        if (BankConfig.getStoreBackend().equals("jdbc")) {
+            JdbcDatabase.open();
+            return new JdbcUserRepository();
+        }
+        return new CsvUserRepository();
+    }
+
+    private static TransactionRepository createTransactions() {
+        if (BankConfig.getStoreBackend().equals("jdbc")) {
+            JdbcDatabase.open();
+            return new JdbcTransactionRepository();
+        }
+        return new CsvTransactionRepository();
+    }
+}
@@ -23,6 +23,18 @@ public class SavingsAccount extends BankAccount {
         this.apy = calculateAPY(balance);
     }
 
+    /**
+     * Constructor for a savings account whose balance is already in whole cents
+     *
+     * @param accountId     The unique ID of the account (e.g., "Vincent-S-1002")
+     * @param userID        The ID of the user who owns the account
+     * @param balanceCents  The balance in cents, e.g. as read back from storage
+     */
+    public SavingsAccount(String accountId, int userID, long balanceCents) {
+        super(accountId, userID, balanceCents, "SAVING");
+        this.apy = calculateAPY(Money.toDouble(balanceCents));
+    }
+
     /**
      * Gets the current APY for this savings account
      * @return The current APY as a decimal (e.g., 0.05 for 5%)
@@ -36,17 +48,22 @@ public class SavingsAccount extends BankAccount {
      * Uses the current balance to determine the rate and updates the account.
      */
     public void applyInterest() {
-        // Recalculate the APY in case the balance changed
-        updateAPY();
-
-        // Convert APY to monthly rate
-        double monthlyRate = apy / 12;
-
-        // Calculate earned interest
-        double interest = getBalance() * monthlyRate;
+        // Calculate earned interest, rounded to the nearest whole cent
+        long interestCents = calculateMonthlyInterestCents();
 
         // Add interest to balance using the deposit() method
-        deposit(interest);
+        deposit(Money.toDouble(interestCents));
+    }
+
+    /**
+     * Calculates one month of interest on the current balance
+     * Recalculates the APY first in case the balance changed, then uses APY / 12 as the monthly rate
+     * @return The interest in cents, rounded to the nearest whole cent
+     */
+    long calculateMonthlyInterestCents() {
+        updateAPY();
+        double monthlyRate = apy / 12;
+        return Math.round(getBalanceCents() * monthlyRate);
     }
 
     /**
@@ -70,6 +87,12 @@ public class SavingsAccount extends BankAccount {
         this.apy = calculateAPY(getBalance());
     }
 
+    @Override
+    void creditCents(long cents) {
+        super.creditCents(cents);
+        updateAPY();
+    }
+
     @Override
     public void deposit(double amount) {
         super.deposit(amount);
@@ -0,0 +1,189 @@
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * StatementFilter describes which transactions belong on a statement.
+ * Every condition is optional; an empty filter matches every transaction.
+ *
+ * Conditions are added with chained calls, for example:
+ *   new StatementFilter()
+ *       .forUser(1001)
+ *       .between(LocalDateTime.of(2025, 5, 1, 0, 0), LocalDateTime.of(2025, 6, 1, 0, 0))
+ *       .ofType("TRANSFER")
+ *       .amountBetween(100.00, 5000.00)
+ *
+ * The cheap checks (ID, account, type, amount) run first, and the timestamp is only parsed
+ * when a date range is set. With the segmented CSV log, mightMatch lets whole segments
+ * be skipped by their time range, ID range and account bloom filter.
+ */
+public class StatementFilter {
+    // null means "any account"
+    private Set<String> accountIDs;
+    private String type;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private long minCents = Long.MIN_VALUE;
+    private long maxCents = Long.MAX_VALUE;
+    private long minId = Long.MIN_VALUE;
+    private long maxId = Long.MAX_VALUE;
+
+    /**
+     * Only keeps transactions that move money into or out of one of these accounts
+     * Calling it again narrows the accounts further
+     * @param accounts The account IDs
+     * @return This filter
+     */
+    public StatementFilter forAccounts(Collection<String> accounts) {
+        Set<String> wanted = new HashSet<>(accounts);
+        if (accountIDs != null) {
+            wanted.retainAll(accountIDs);
+        }
+        accountIDs = wanted;
+        return this;
+    }
+
+    /**
+     * Only keeps transactions involving one account
+     * @param accountID The account ID
+     * @return This filter
+     */
+    public StatementFilter forAccount(String accountID) {
+        return forAccounts(Set.of(accountID));
+    }
+
+    /**
+     * Only keeps transactions involving any of a user's accounts
+     * The user's accounts are looked up once, when this is called
+     * @param userID The user ID
+     * @return This filter
+     */
+    public StatementFilter forUser(int userID) {
+        Set<String> accounts = new HashSet<>();
+        for (BankAccount account : BankAccount.getUserAccounts(userID)) {
+            accounts.add(account.getAccountID());
+        }
+        return forAccounts(accounts);
+    }
+
+    /**
+     * Only keeps transactions of one type, e.g. "TRANSFER" or "DEPOSIT" (upper or lower case)
+     * @param type The transaction type
+     * @return This filter
+     */
+    public StatementFilter ofType(String type) {
+        this.type = type;
+        return this;
+    }
+
+    /**
+     * Only keeps transactions made in a date range
+     * @param from The earliest time (inclusive), or null for no lower limit
+     * @param to The latest time (exclusive), or null for no upper limit
+     * @return This filter
+     */
+    public StatementFilter between(LocalDateTime from, LocalDateTime to) {
+        this.from = from;
+        this.to = to;
+        return this;
+    }
+
+    /**
+     * Only keeps transactions whose amount is in a range (both ends inclusive)
+     * @param min The smallest amount in dollars
+     * @param max The largest amount in dollars
+     * @return This filter
+     */
+    public StatementFilter amountBetween(double min, double max) {
+        this.minCents = Money.toCents(min);
+        this.maxCents = Money.toCents(max);
+        return this;
+    }
+
+    /**
+     * Only keeps transactions whose ID is in a range (both ends inclusive)
+     * @param low The lowest transaction ID
+     * @param high The highest transaction ID
+     * @return This filter
+     */
+    public StatementFilter transactionIdBetween(long low, long high) {
+        this.minId = low;
+        this.maxId = high;
+        return this;
+    }
+
+    /**
+     * Checks a log segment's summary against the filter, so segments that cannot hold
+     * a matching transaction do not have to be read
+     * @param segment The segment to check
+     * @return false if no transaction in the segment can match, true if some might
+     */
+    public boolean mightMatch(LogSegment segment) {
+        if (segment.getCount() == 0 || !segment.overlapsIds(minId, maxId)) {
+            return false;
+        }
+        if ((from != null || to != null) && !segment.overlapsTime(from, to)) {
+            return false;
+        }
+        if (accountIDs == null) {
+            return true;
+        }
+        for (String accountID : accountIDs) {
+            if (segment.mightContainAccount(accountID)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks a transaction object against the filter
+     * @param transaction The transaction to check
+     * @return true if it belongs on the statement
+     */
+    public boolean matches(Transaction transaction) {
+        return matchesFields(transaction.getTransactionId(), transaction.getFromAccount(), transaction.getToAccount(),
+                transaction.getAmountCents(), transaction.getType())
+                && matchesTime(transaction.getTimestamp());
+    }
+
+    /**
+     * Checks the current row of a TransactionLogReader without building a Transaction object
+     * @param reader A reader positioned on a row
+     * @return true if the row belongs on the statement
+     */
+    public boolean matches(TransactionLogReader reader) {
+        return matchesFields(reader.getTransactionId(), reader.getFromAccount(), reader.getToAccount(),
+                reader.getAmountCents(), reader.getType())
+                && (from == null && to == null || matchesTime(reader.getTimestamp()));
+    }
+
+    private boolean matchesFields(long transactionId, String fromAccount, String toAccount,
+                                  long amountCents, String transactionType) {
+        if (transactionId < minId || transactionId > maxId) {
+            return false;
+        }
+        if (accountIDs != null && !accountIDs.contains(fromAccount) && !accountIDs.contains(toAccount)) {
+            return false;
+        }
+        if (amountCents < minCents || amountCents > maxCents) {
+            return false;
+        }
+        return type == null || type.equalsIgnoreCase(transactionType);
+    }
+
+    private boolean matchesTime(String timestamp) {
+        if (from == null && to == null) {
+            return true;
+        }
+        LocalDateTime time;
+        try {
+            time = LocalDateTime.parse(timestamp);
+        } catch (DateTimeParseException e) {
+            return false; // A row without a readable date cannot be placed in the range
+        }
+        return (from == null || !time.isBefore(from)) && (to == null || time.isBefore(to));
+    }
+}
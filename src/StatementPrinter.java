@@ -0,0 +1,85 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * StatementPrinter writes a statement (a filtered list of transactions) as formatted text.
+ *
+ * Transactions come from TransactionHistory.stream, so they are printed while the log is
+ * still being read. All text goes through one BufferedWriter, and the writer is flushed at
+ * the end of every page, so each page shows up as soon as it is complete.
+ */
+public class StatementPrinter {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    /**
+     * Prints a statement to the console
+     * @param title The heading printed above the statement
+     * @param filter Which transactions to include
+     * @return The number of transactions printed
+     */
+    public static long print(String title, StatementFilter filter) {
+        // Not closed, that would close System.out
+        Writer console = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        return write(title, filter, console, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Writes a statement page by page
+     * @param title The heading written above the statement
+     * @param filter Which transactions to include
+     * @param out Where to write the statement
+     * @param pageSize Transactions per page
+     * @return The number of transactions written
+     */
+    public static long write(String title, StatementFilter filter, Writer out, int pageSize) {
+        BufferedWriter writer = out instanceof BufferedWriter ? (BufferedWriter) out : new BufferedWriter(out);
+        long count = 0;
+        try (Stream<Transaction> transactions = TransactionHistory.stream(filter)) {
+            writer.write("\n=== " + title + " ===\n");
+            Iterator<Transaction> rows = transactions.iterator();
+            int page = 1;
+            while (rows.hasNext()) {
+                if (count % pageSize == 0) {
+                    writer.write("\n--- Page " + page++ + " ---\n");
+                }
+                writeTransaction(writer, rows.next());
+                count++;
+                if (count % pageSize == 0) {
+                    writer.flush(); // Show the finished page before reading further
+                }
+            }
+            if (count == 0) {
+                writer.write("No transactions found.\n");
+            } else {
+                writer.write("\n" + count + " transaction(s)\n");
+            }
+            writer.flush();
+        } catch (IOException e) {
+            System.err.println("Error writing statement: " + e.getMessage());
+        } catch (UncheckedIOException e) {
+            // The log could not be read to the end, so the statement is incomplete
+            System.err.println("Error reading transactions, statement stopped after " + count + ": " + e.getMessage());
+        }
+        return count;
+    }
+
+    private static void writeTransaction(BufferedWriter writer, Transaction transaction) throws IOException {
+        StringBuilder text = new StringBuilder(200);
+        text.append("\nTransaction ID: ").append(transaction.getTransactionId())
+                .append("\nDate: ").append(transaction.getTimestamp())
+                .append("\nType: ").append(transaction.getType())
+                .append("\nAmount: $");
+        Money.appendTo(text, transaction.getAmountCents());
+        text.append("\nFrom: ").append(transaction.getFromAccount())
+                .append("\nTo: ").append(transaction.getToAccount())
+                .append("\nNote: ").append(transaction.getNote())
+                .append("\n-------------------\n");
+        writer.write(text.toString());
+    }
+}
@@ -0,0 +1,163 @@
+import java.util.Arrays;
+
+/**
+ * StringIntMap maps strings (e.g. account IDs) to int values, such as a slot in a file
+ * or a position in a list, without an Integer or a node object per entry.
+ *
+ * Keys are kept in a String[] next to an int[] of values and a cached int[] of key hashes,
+ * so a probe compares hashes before calling equals() (open addressing with linear probing,
+ * at most half full). get() returns the "no value" given to the constructor for missing keys.
+ *
+ * Keys may not be null. Not thread-safe: callers that share a map between threads must
+ * lock around it.
+ */
+public class StringIntMap {
+    private final int noValue;
+    private String[] keys;
+    private int[] hashes;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    /**
+     * Creates a map that returns -1 for missing keys
+     */
+    public StringIntMap() {
+        this(16, -1);
+    }
+
+    /**
+     * Creates a map
+     * @param expectedSize How many entries the map will likely hold
+     * @param noValue What get() returns for a key that is not in the map
+     */
+    public StringIntMap(int expectedSize, int noValue) {
+        this.noValue = noValue;
+        allocate(tableSize(expectedSize));
+    }
+
+    /**
+     * Gets the value for a key
+     * @param key The key to look up
+     * @return The value, or the map's "no value" if the key is not in the map
+     */
+    public int get(String key) {
+        int slot = find(key);
+        return slot < 0 ? noValue : values[slot];
+    }
+
+    public boolean containsKey(String key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Adds or replaces the value for a key
+     * @param key The key, not null
+     * @param value The value
+     * @return The previous value, or the map's "no value" if the key was not in the map
+     */
+    public int put(String key, int value) {
+        int hash = hash(key);
+        int slot = hash & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && keys[slot].equals(key)) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        hashes[slot] = hash;
+        values[slot] = value;
+        size++;
+        if (size * 2 > keys.length) {
+            grow();
+        }
+        return noValue;
+    }
+
+    /**
+     * Removes a key
+     * @param key The key to remove
+     * @return The value it had, or the map's "no value" if the key was not in the map
+     */
+    public int remove(String key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return noValue;
+        }
+        int previous = values[slot];
+        // Move later entries of the same probe run back, so no lookup stops early at the gap
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != null) {
+            int home = hashes[next] & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                hashes[gap] = hashes[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = null;
+        size--;
+        return previous;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, null);
+        size = 0;
+    }
+
+    private int find(String key) {
+        int hash = hash(key);
+        int slot = hash & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && keys[slot].equals(key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int hash(String key) {
+        // String caches its hashCode; spread it since the low bits pick the slot
+        int hash = key.hashCode() * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private void grow() {
+        String[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != null) {
+                put(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    private void allocate(int tableSize) {
+        keys = new String[tableSize];
+        hashes = new int[tableSize];
+        values = new int[tableSize];
+        mask = tableSize - 1;
+    }
+
+    private static int tableSize(int expectedSize) {
+        int wanted = Math.max(4, expectedSize) * 2;
+        return Integer.highestOneBit(wanted - 1) << 1;
+    }
+}
@@ -7,90 +7,37 @@
  * Date: April 10, 2025
  */
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.IOException;
 import java.time.LocalDateTime;
 
 public class Transaction {
-    private static int idCounter = 1; //simple tally to auto-generate unique transaction IDs
-    private int transactionId;
+    private long transactionId; // unique ID from TransactionIdAllocator
     private String timestamp;
     private String fromAccount;
     private String toAccount;
-    private double amount;
+    private long amountCents; // amount in whole cents (see Money)
     private String type;
     private String note;
 
-    static {
-        // Initialize idCounter from the highest transaction ID in the file
-        try {
-            File file = new File("data/transactions.csv");
-            if (file.exists()) {
-                try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                    String line;
-                    int highestId = 0;
-                    boolean isFirstLine = true;
-                    
-                    while ((line = reader.readLine()) != null) {
-                        // Skip header line
-                        if (isFirstLine) {
-                            isFirstLine = false;
-                            continue;
-                        }
-                        
-                        // Skip empty lines
-                        if (line.trim().isEmpty()) {
-                            continue;
-                        }
-                        
-                        String[] parts = line.trim().split("\\s{2,}");
-                        if (parts.length >= 1) {
-                            try {
-                                int id = Integer.parseInt(parts[0].trim());
-                                if (id > highestId) {
-                                    highestId = id;
-                                }
-                            } catch (NumberFormatException e) {
-                                // Skip lines that can't be parsed
-                                continue;
-                            }
-                        }
-                    }
-                    idCounter = highestId + 1;
-                    System.out.println("Initialized transaction ID counter to: " + idCounter);
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error initializing transaction ID counter: " + e.getMessage());
-        }
-    }
-
     // constructor that initializes a transaction with all required fields
     public Transaction(String fromAccount, String toAccount, double amount, String type, String note) {
-        this.transactionId = idCounter++;
+        this.transactionId = TransactionIdAllocator.nextId();
         this.timestamp = LocalDateTime.now().toString(); // gets the date/time of the transaction
         this.fromAccount = fromAccount;
         this.toAccount = toAccount;
-        this.amount = amount;
+        this.amountCents = Money.toCents(amount);
         this.type = type;
         this.note = note;
     }
 
-    // constructor for loading transactions from file
-    public Transaction(int transactionId, String timestamp, String fromAccount, String toAccount, double amount, String type, String note) {
+    // constructor for loading transactions from file (the amount is already in cents)
+    public Transaction(long transactionId, String timestamp, String fromAccount, String toAccount, long amountCents, String type, String note) {
         this.transactionId = transactionId;
         this.timestamp = timestamp;
         this.fromAccount = fromAccount;
         this.toAccount = toAccount;
-        this.amount = amount;
+        this.amountCents = amountCents;
         this.type = type;
         this.note = note;
-        // Update idCounter if needed
-        if (transactionId >= idCounter) {
-            idCounter = transactionId + 1;
-        }
     }
 
     // Getters
@@ -103,7 +50,11 @@ public class Transaction {
     }
 
     public double getAmount() {
-        return amount;
+        return Money.toDouble(amountCents);
+    }
+
+    public long getAmountCents() {
+        return amountCents;
     }
 
     public String getType() {
@@ -118,26 +69,27 @@ public class Transaction {
         return timestamp;
     }
 
-    public int getTransactionId() {
+    public long getTransactionId() {
         return transactionId;
     }
 
     // converts the transaction to a formatted string for csv file writing
+    // (built by hand instead of String.format, since this runs for every logged transaction)
     public String toCSV() {
-        return String.format("%d,%s,%s,%s,%.2f,%s,%s",
-                transactionId,
-                timestamp,
-                fromAccount,
-                toAccount,
-                amount,
-                type,
-                note
-        );
+        StringBuilder sb = new StringBuilder(96)
+                .append(transactionId).append(',')
+                .append(timestamp).append(',')
+                .append(fromAccount).append(',')
+                .append(toAccount).append(',');
+        Money.appendTo(sb, amountCents).append(',');
+        return sb.append(type).append(',')
+                .append(note)
+                .toString();
     }
 
     @Override
     public String toString() {
-        return String.format("%s,%s,%s,%.2f,%s,%s",
-                timestamp, fromAccount, toAccount, amount, type, note);
+        return String.format("%s,%s,%s,%s,%s,%s",
+                timestamp, fromAccount, toAccount, Money.format(amountCents), type, note);
     }
 }
@@ -0,0 +1,737 @@
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * TransactionColumns keeps the transaction log in memory as columns, for reports that add up
+ * amounts over the whole log (totals by type, by day and by account).
+ *
+ * Instead of one Transaction object per row (seven fields, three or four of them Strings),
+ * every field is its own primitive array:
+ *   ids       long[]  transaction IDs
+ *   times     long[]  timestamps as local time in milliseconds since 1970-01-01T00:00
+ *   from, to  int[]   account codes (each account ID is stored once, in a dictionary)
+ *   types     int[]   type codes (upper case, also a dictionary)
+ *   cents     long[]  amounts in cents
+ *   notes     int[]   note codes (a dictionary too)
+ *   subMillis int[]   the part of the timestamp below the millisecond, in nanoseconds
+ * A row costs 44 bytes, and a report is a tight loop over a few arrays that never touches
+ * a String or allocates per row.
+ * The last two columns are only there so a row can be turned back into the Transaction that
+ * was logged (Snapshot.getTransaction), which is how TransactionIndex answers history lookups
+ * without keeping its own copy of the log. The few timestamps and types that would not come
+ * back the same way (an unusual layout, a type not in upper case) are kept as text on the side.
+ *
+ * Logging a transaction must not wait for a report or for the first read of the log, so
+ * TransactionLogger only puts new transactions on a lock-free queue. The queue is moved into
+ * the columns by whichever thread next finds the lock free, and always before a snapshot.
+ * The log itself is read once, on a background thread started by the first logged
+ * transaction (or by the first report, if that comes sooner).
+ * Reports work on a Snapshot: rows are only ever appended, so a snapshot taken under the
+ * lock can be scanned without it, by any number of threads. A reload (after a failed write)
+ * starts new arrays, so older snapshots keep what they saw.
+ */
+public class TransactionColumns {
+    private static final Log LOG = Log.get(TransactionColumns.class);
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    // Stored in the times column when a timestamp cannot be read; left out of daily totals
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    private static long[] ids = new long[1024];
+    private static long[] times = new long[1024];
+    private static int[] from = new int[1024];
+    private static int[] to = new int[1024];
+    private static int[] types = new int[1024];
+    private static long[] cents = new long[1024];
+    private static int[] notes = new int[1024];
+    private static int[] subMillis = new int[1024];
+    private static int size;
+    // Goes up on every reload, so TransactionIndex knows to start over
+    private static int generation;
+
+    private static Dictionary accountNames = new Dictionary();
+    private static Dictionary typeNames = new Dictionary();
+    private static Dictionary noteNames = new Dictionary();
+    // Row -> exact text, for rows whose subMillis is EXACT_TIME; guarded by the map itself
+    private static IntObjectMap<String> exactTimes = new IntObjectMap<>();
+    // Row -> type as logged, for types not already in upper case; guarded by the map itself
+    private static IntObjectMap<String> exactTypes = new IntObjectMap<>();
+    // Stored in the subMillis column when the timestamp text is kept in exactTimes
+    private static final int EXACT_TIME = -1;
+
+    // Logged transactions not yet in the columns
+    private static final ConcurrentLinkedQueue<Transaction> pending = new ConcurrentLinkedQueue<>();
+    // IDs read by the first load, so queued transactions it already saw are not added twice
+    private static LongLongMap loadedIds = new LongLongMap();
+
+    private static final ReentrantLock lock = new ReentrantLock();
+    private static final AtomicBoolean loadStarted = new AtomicBoolean();
+    private static volatile boolean loaded = false;
+    // Set by TransactionLogger when a logged batch could not be written; the next use reloads from the file
+    private static volatile boolean stale = false;
+
+    /**
+     * Names stored once each, numbered in the order they were first seen
+     * Names are only ever added, so a snapshot keeps the array and a count instead of a copy
+     */
+    private static class Dictionary {
+        private String[] names = new String[16];
+        private int size;
+        // Snapshots look up codes without the columns lock, so changes are guarded by the map
+        private final StringIntMap codes = new StringIntMap();
+
+        /**
+         * Looks up a code, adding the name the first time it is seen
+         * Must be called while holding the columns lock
+         */
+        int code(String name) {
+            if (name == null) {
+                name = "";
+            }
+            int code = codes.get(name);
+            if (code < 0) {
+                if (size == names.length) {
+                    names = Arrays.copyOf(names, size * 2);
+                }
+                code = size;
+                names[size++] = name;
+                synchronized (codes) {
+                    codes.put(name, code);
+                }
+            }
+            return code;
+        }
+
+        /**
+         * Looks up a code from any thread
+         * @return The code, or -1 if the name was never added
+         */
+        int find(String name) {
+            synchronized (codes) {
+                return codes.get(name);
+            }
+        }
+    }
+
+    /**
+     * A fixed view of the columns, safe to scan from several threads without locking
+     * Row numbers run from 0 to size() - 1 in log order
+     */
+    public static class Snapshot {
+        private final int size;
+        private final int generation;
+        private final long[] ids;
+        private final long[] times;
+        private final int[] from;
+        private final int[] to;
+        private final int[] types;
+        private final long[] cents;
+        private final int[] notes;
+        private final int[] subMillis;
+        private final String[] accounts;
+        private final int accountCount;
+        private final Dictionary accountCodes;
+        private final String[] typeNames;
+        private final int typeCount;
+        private final String[] noteNames;
+        private final IntObjectMap<String> exactTimes;
+        private final IntObjectMap<String> exactTypes;
+        private final boolean anyExactTypes;
+
+        /**
+         * Takes the current columns, must be called while holding the lock
+         */
+        private Snapshot() {
+            size = TransactionColumns.size;
+            generation = TransactionColumns.generation;
+            ids = TransactionColumns.ids;
+            times = TransactionColumns.times;
+            from = TransactionColumns.from;
+            to = TransactionColumns.to;
+            types = TransactionColumns.types;
+            cents = TransactionColumns.cents;
+            notes = TransactionColumns.notes;
+            subMillis = TransactionColumns.subMillis;
+            accounts = accountNames.names;
+            accountCount = accountNames.size;
+            accountCodes = accountNames;
+            typeNames = TransactionColumns.typeNames.names;
+            typeCount = TransactionColumns.typeNames.size;
+            noteNames = TransactionColumns.noteNames.names;
+            exactTimes = TransactionColumns.exactTimes;
+            exactTypes = TransactionColumns.exactTypes;
+            synchronized (exactTypes) {
+                anyExactTypes = !exactTypes.isEmpty();
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Tells snapshots from before and after a reload apart
+         * Rows of two snapshots with the same generation are the same transactions
+         * @return A number that goes up on every reload
+         */
+        public int getGeneration() {
+            return generation;
+        }
+
+        public long getId(int row) {
+            return ids[row];
+        }
+
+        public long getTime(int row) {
+            return times[row];
+        }
+
+        public int getFrom(int row) {
+            return from[row];
+        }
+
+        public int getTo(int row) {
+            return to[row];
+        }
+
+        public int getType(int row) {
+            return types[row];
+        }
+
+        public long getCents(int row) {
+            return cents[row];
+        }
+
+        public int accountCount() {
+            return accountCount;
+        }
+
+        public String accountName(int code) {
+            return accounts[code];
+        }
+
+        public int typeCount() {
+            return typeCount;
+        }
+
+        public String typeName(int code) {
+            return typeNames[code];
+        }
+
+        /**
+         * Turns a row back into the Transaction that was logged
+         * @param row The row number
+         * @return A new Transaction with the same fields
+         */
+        public Transaction getTransaction(int row) {
+            String type = typeNames[types[row]];
+            if (anyExactTypes) {
+                synchronized (exactTypes) {
+                    type = exactTypes.getOrDefault(row, type);
+                }
+            }
+            return new Transaction(ids[row], timestamp(row), accounts[from[row]], accounts[to[row]],
+                    cents[row], type, noteNames[notes[row]]);
+        }
+
+        private String timestamp(int row) {
+            if (subMillis[row] == EXACT_TIME) {
+                synchronized (exactTimes) {
+                    return exactTimes.get(row);
+                }
+            }
+            return formatTime(times[row], subMillis[row]);
+        }
+
+        /**
+         * Finds the code of a transaction type
+         * @param type The type, in any case
+         * @return The code, or -1 if no transaction has that type
+         */
+        public int typeCode(String type) {
+            String name = type.toUpperCase(Locale.ROOT);
+            for (int code = 0; code < typeCount; code++) {
+                if (typeNames[code].equals(name)) {
+                    return code;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Finds the code of an account
+         * @param accountID The account ID
+         * @return The code, or -1 if no transaction involves that account
+         */
+        public int accountCode(String accountID) {
+            int code = accountCodes.find(accountID);
+            // Accounts first seen after this snapshot have codes it has no rows for
+            return code < accountCount ? code : -1;
+        }
+
+        /**
+         * Adds up the amounts of a range of rows by type
+         * @param start First row (inclusive)
+         * @param end Last row (exclusive)
+         * @return Cents per type code
+         */
+        public long[] totalsByType(int start, int end) {
+            long[] totals = new long[typeCount];
+            for (int row = start; row < end; row++) {
+                totals[types[row]] += cents[row];
+            }
+            return totals;
+        }
+
+        /**
+         * Counts a range of rows by type
+         * @param start First row (inclusive)
+         * @param end Last row (exclusive)
+         * @return Number of rows per type code
+         */
+        public long[] countsByType(int start, int end) {
+            long[] counts = new long[typeCount];
+            for (int row = start; row < end; row++) {
+                counts[types[row]]++;
+            }
+            return counts;
+        }
+
+        /**
+         * Adds up the amounts of a range of rows by the account the money left
+         * @param start First row (inclusive)
+         * @param end Last row (exclusive)
+         * @return Cents per account code
+         */
+        public long[] outgoingByAccount(int start, int end) {
+            long[] totals = new long[accountCount];
+            for (int row = start; row < end; row++) {
+                totals[from[row]] += cents[row];
+            }
+            return totals;
+        }
+
+        /**
+         * Adds up the amounts of a range of rows by the account the money went to
+         * @param start First row (inclusive)
+         * @param end Last row (exclusive)
+         * @return Cents per account code
+         */
+        public long[] incomingByAccount(int start, int end) {
+            long[] totals = new long[accountCount];
+            for (int row = start; row < end; row++) {
+                totals[to[row]] += cents[row];
+            }
+            return totals;
+        }
+
+        /**
+         * Adds up the amounts of one type (or all types) between two times
+         * One pass over three columns with no per-row objects, simple enough for the JIT
+         * to unroll and vectorize
+         * @param typeCode The type to include, or -1 for every type
+         * @param fromTime Start time in local milliseconds (inclusive)
+         * @param toTime End time in local milliseconds (exclusive)
+         * @return The total in cents
+         */
+        public long sumCents(int typeCode, long fromTime, long toTime) {
+            long total = 0;
+            for (int row = 0; row < size; row++) {
+                boolean match = times[row] >= fromTime && times[row] < toTime
+                        && (typeCode < 0 || types[row] == typeCode);
+                total += match ? cents[row] : 0;
+            }
+            return total;
+        }
+
+        /**
+         * Adds up the amounts of a range of rows by day
+         * @param typeCode The type to include, or -1 for every type
+         * @param start First row (inclusive)
+         * @param end Last row (exclusive)
+         * @return Cents per day, oldest first (days with no transactions are left out)
+         */
+        public TreeMap<LocalDate, Long> totalsByDay(int typeCode, int start, int end) {
+            // First pass finds the range of days, so the second can add into a plain array
+            long firstDay = Long.MAX_VALUE;
+            long lastDay = Long.MIN_VALUE;
+            for (int row = start; row < end; row++) {
+                if (times[row] != NO_TIME) {
+                    long day = Math.floorDiv(times[row], MILLIS_PER_DAY);
+                    firstDay = Math.min(firstDay, day);
+                    lastDay = Math.max(lastDay, day);
+                }
+            }
+            TreeMap<LocalDate, Long> byDay = new TreeMap<>();
+            if (firstDay > lastDay) {
+                return byDay;
+            }
+            long[] totals = new long[(int) (lastDay - firstDay + 1)];
+            boolean[] seen = new boolean[totals.length];
+            for (int row = start; row < end; row++) {
+                if (times[row] != NO_TIME && (typeCode < 0 || types[row] == typeCode)) {
+                    int day = (int) (Math.floorDiv(times[row], MILLIS_PER_DAY) - firstDay);
+                    totals[day] += cents[row];
+                    seen[day] = true;
+                }
+            }
+            for (int day = 0; day < totals.length; day++) {
+                if (seen[day]) {
+                    byDay.put(LocalDate.ofEpochDay(firstDay + day), totals[day]);
+                }
+            }
+            return byDay;
+        }
+    }
+
+    /**
+     * Reads the log into the columns, then adds the queued transactions it did not see
+     * Must be called while holding the lock
+     */
+    private static void ensureLoaded() {
+        if (loaded && !stale) {
+            return;
+        }
+        if (stale) {
+            // Cleared before reading, so a failure reported during the read forces another reload
+            stale = false;
+            clear();
+            pending.clear();
+            loadedIds = new LongLongMap();
+        }
+        // Streamed, so the whole log is never held as Transaction objects at once
+        try (Stream<Transaction> log = TransactionHistory.streamLog(new StatementFilter())) {
+            log.forEach(transaction -> {
+                loadedIds.put(transaction.getTransactionId(), 0);
+                append(transaction);
+            });
+        } catch (RuntimeException e) {
+            // Start over on the next try rather than keep half the log
+            clear();
+            loadedIds.clear();
+            throw e;
+        }
+        // Everything queued from here on was logged after the read, so the IDs are no longer needed
+        drainPending();
+        loadedIds = null;
+        loaded = true;
+    }
+
+    /**
+     * Empties the columns and dictionaries
+     * New arrays are started rather than written over, since snapshots may still use the old ones
+     * Must be called while holding the lock
+     */
+    private static void clear() {
+        ids = new long[1024];
+        times = new long[1024];
+        from = new int[1024];
+        to = new int[1024];
+        types = new int[1024];
+        cents = new long[1024];
+        notes = new int[1024];
+        subMillis = new int[1024];
+        size = 0;
+        generation++;
+        accountNames = new Dictionary();
+        typeNames = new Dictionary();
+        noteNames = new Dictionary();
+        exactTimes = new IntObjectMap<>();
+        exactTypes = new IntObjectMap<>();
+    }
+
+    /**
+     * Whether the log has been read into the columns yet
+     * @return true once the first read has finished (and no reload is pending)
+     */
+    public static boolean isLoaded() {
+        return loaded && !stale;
+    }
+
+    /**
+     * Throws away the columns, so they are read again from the file the next time they are used
+     * Called by TransactionLogger when transactions already added here could not be written
+     */
+    public static void invalidate() {
+        stale = true;
+        loadStarted.set(false);
+    }
+
+    /**
+     * Moves the queued transactions into the columns
+     * Must be called while holding the lock
+     */
+    private static void drainPending() {
+        Transaction transaction;
+        while ((transaction = pending.poll()) != null) {
+            if (loadedIds == null || !loadedIds.containsKey(transaction.getTransactionId())) {
+                append(transaction);
+            }
+        }
+    }
+
+    /**
+     * Starts reading the log on a background thread, once
+     */
+    private static void startLoading() {
+        if ((loaded && !stale) || !loadStarted.compareAndSet(false, true)) {
+            return;
+        }
+        Thread loader = new Thread(() -> {
+            lock.lock();
+            try {
+                ensureLoaded();
+            } catch (RuntimeException e) {
+                LOG.error("Could not read the transaction log into the report columns: " + e.getMessage());
+                loadStarted.set(false);
+            } finally {
+                lock.unlock();
+            }
+        }, "transaction-columns-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Moves the queue into the columns if no other thread holds the lock right now
+     * Never waits: if the lock is busy, the holder or the next snapshot picks the rows up
+     */
+    private static void tryDrain() {
+        if (!loaded || stale) {
+            startLoading();
+            return;
+        }
+        if (lock.tryLock()) {
+            try {
+                drainPending();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Adds a newly logged transaction
+     * Called by TransactionLogger before the record is queued for the file; only puts the
+     * transaction on a queue, so it never waits for the lock
+     * @param transaction The transaction being logged
+     */
+    public static void add(Transaction transaction) {
+        pending.add(transaction);
+        tryDrain();
+    }
+
+    /**
+     * Adds a batch of newly logged transactions
+     * @param batch The transactions being logged, in order
+     */
+    public static void addAll(List<Transaction> batch) {
+        pending.addAll(batch);
+        tryDrain();
+    }
+
+    /**
+     * Gets a view of every transaction logged so far
+     * Waits for the first read of the log if it has not finished yet
+     * @return The snapshot
+     */
+    public static Snapshot snapshot() {
+        lock.lock();
+        try {
+            ensureLoaded();
+            drainPending();
+            return new Snapshot();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Converts a date and time to the local milliseconds used in the times column
+     * @param time The local date and time
+     * @return Milliseconds since 1970-01-01T00:00
+     */
+    public static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Gets the day of a value from the times column
+     * @param time Local milliseconds, not NO_TIME
+     * @return Days since 1970-01-01
+     */
+    public static long dayOf(long time) {
+        return Math.floorDiv(time, MILLIS_PER_DAY);
+    }
+
+    private static void append(Transaction transaction) {
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            times = Arrays.copyOf(times, capacity);
+            from = Arrays.copyOf(from, capacity);
+            to = Arrays.copyOf(to, capacity);
+            types = Arrays.copyOf(types, capacity);
+            cents = Arrays.copyOf(cents, capacity);
+            notes = Arrays.copyOf(notes, capacity);
+            subMillis = Arrays.copyOf(subMillis, capacity);
+        }
+        String timestamp = transaction.getTimestamp();
+        ids[size] = transaction.getTransactionId();
+        times[size] = parseMillis(timestamp);
+        subMillis[size] = subMillis(timestamp, times[size]);
+        if (subMillis[size] == EXACT_TIME && timestamp != null) {
+            synchronized (exactTimes) {
+                exactTimes.put(size, timestamp);
+            }
+        }
+        from[size] = accountNames.code(transaction.getFromAccount());
+        to[size] = accountNames.code(transaction.getToAccount());
+        String type = transaction.getType() == null ? "" : transaction.getType().toUpperCase(Locale.ROOT);
+        types[size] = typeNames.code(type);
+        if (transaction.getType() != null && !type.equals(transaction.getType())) {
+            synchronized (exactTypes) {
+                exactTypes.put(size, transaction.getType());
+            }
+        }
+        cents[size] = transaction.getAmountCents();
+        notes[size] = noteNames.code(transaction.getNote());
+        size++;
+    }
+
+    /**
+     * Gets the nanoseconds below the millisecond of a timestamp, checking on the way that
+     * LocalDateTime.toString() gives back exactly the same text (it leaves out zero seconds
+     * and prints the fraction in groups of 3 digits, like LocalDateTime.now().toString() wrote it)
+     * @param timestamp The timestamp as logged
+     * @param time The timestamp already read by parseMillis
+     * @return The nanoseconds (0 to 999999), or EXACT_TIME if the text has to be kept as it is
+     */
+    private static int subMillis(String timestamp, long time) {
+        if (time == NO_TIME || timestamp.length() < 19 || timestamp.length() > 29
+                || digits(timestamp, 0, 4) < 0) {
+            return EXACT_TIME;
+        }
+        int length = timestamp.length();
+        int nanos = 0;
+        if (length > 19) {
+            if (length == 20 || timestamp.charAt(19) != '.') {
+                return EXACT_TIME;
+            }
+            int fraction = digits(timestamp, 20, length);
+            if (fraction < 0) {
+                return EXACT_TIME;
+            }
+            for (int i = length; i < 29; i++) {
+                fraction *= 10;
+            }
+            nanos = fraction;
+        }
+        long second = Math.floorMod(time, 60_000L) / 1000;
+        int expected = nanos == 0 ? (second == 0 ? 16 : 19)
+                : nanos % 1_000_000 == 0 ? 23 : nanos % 1000 == 0 ? 26 : 29;
+        return expected == length ? nanos % 1_000_000 : EXACT_TIME;
+    }
+
+    /**
+     * Reads an ISO timestamp (yyyy-MM-ddTHH:mm:ss.fraction) into local milliseconds
+     * The usual layout is read by hand, since this runs once for every row of the log
+     * @return The milliseconds, or NO_TIME if the timestamp cannot be read
+     */
+    private static long parseMillis(String timestamp) {
+        if (timestamp != null && timestamp.length() >= 19 && timestamp.charAt(4) == '-'
+                && timestamp.charAt(7) == '-' && timestamp.charAt(10) == 'T'
+                && timestamp.charAt(13) == ':' && timestamp.charAt(16) == ':') {
+            int year = digits(timestamp, 0, 4);
+            int month = digits(timestamp, 5, 7);
+            int day = digits(timestamp, 8, 10);
+            int hour = digits(timestamp, 11, 13);
+            int minute = digits(timestamp, 14, 16);
+            int second = digits(timestamp, 17, 19);
+            int millis = 0;
+            if (timestamp.length() >= 23 && timestamp.charAt(19) == '.') {
+                millis = digits(timestamp, 20, 23);
+            }
+            if (year >= 0 && month >= 1 && month <= 12 && day >= 1 && day <= 31 && hour >= 0 && hour < 24
+                    && minute >= 0 && minute < 60 && second >= 0 && second < 60 && millis >= 0) {
+                try {
+                    return LocalDate.of(year, month, day).toEpochDay() * MILLIS_PER_DAY
+                            + ((hour * 60L + minute) * 60 + second) * 1000 + millis;
+                } catch (DateTimeException e) {
+                    return NO_TIME;
+                }
+            }
+        }
+        try {
+            return toMillis(LocalDateTime.parse(timestamp));
+        } catch (DateTimeParseException | NullPointerException e) {
+            return NO_TIME;
+        }
+    }
+
+    /**
+     * Writes a timestamp the way LocalDateTime.toString() does, for a time that subMillis()
+     * accepted (a four digit year)
+     * Written by hand for the same reason as parseMillis: history lookups call it for every row
+     */
+    private static String formatTime(long time, int nanosOfMilli) {
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(time, MILLIS_PER_DAY));
+        long millisOfDay = Math.floorMod(time, MILLIS_PER_DAY);
+        int second = (int) (millisOfDay / 1000 % 60);
+        int nanos = (int) (millisOfDay % 1000) * 1_000_000 + nanosOfMilli;
+        char[] text = new char[29];
+        put(text, 0, date.getYear(), 4);
+        text[4] = '-';
+        put(text, 5, date.getMonthValue(), 2);
+        text[7] = '-';
+        put(text, 8, date.getDayOfMonth(), 2);
+        text[10] = 'T';
+        put(text, 11, (int) (millisOfDay / 3_600_000), 2);
+        text[13] = ':';
+        put(text, 14, (int) (millisOfDay / 60_000 % 60), 2);
+        if (second == 0 && nanos == 0) {
+            return new String(text, 0, 16);
+        }
+        text[16] = ':';
+        put(text, 17, second, 2);
+        if (nanos == 0) {
+            return new String(text, 0, 19);
+        }
+        text[19] = '.';
+        put(text, 20, nanos, 9);
+        int length = nanos % 1_000_000 == 0 ? 23 : nanos % 1000 == 0 ? 26 : 29;
+        return new String(text, 0, length);
+    }
+
+    /**
+     * Writes a number as a fixed count of digits, with leading zeros
+     */
+    private static void put(char[] text, int start, int value, int width) {
+        for (int i = start + width - 1; i >= start; i--) {
+            text[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int digits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -6,138 +6,99 @@
  * Description: This class provides functionality to read and display all transaction history
  *              related to a specific account. It filters results based on account ID and shows
  *              only relevant transactions in a clean format in the terminal.
+ *              Lookups are answered by TransactionIndex instead of re-reading the file each time.
  * Date: April 16, 2025
  */
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class TransactionHistory {
-    private static List<Transaction> transactions = new ArrayList<>();
-    private static final String FILE_PATH = "data/transactions.csv";
-
-    private static void loadTransactions() {
-        transactions.clear(); // Clear existing transactions to prevent duplicates
-        System.out.println("\n=== Loading transactions from file ===");
-        File file = new File(FILE_PATH);
-        System.out.println("Transaction file path: " + file.getAbsolutePath());
-        System.out.println("File exists: " + file.exists());
-        
-        if (!file.exists()) {
-            System.out.println("Transaction file does not exist");
-            return;
-        }
+    private static final Log LOG = Log.get(TransactionHistory.class);
+    private static final Metrics.Histogram QUERY_LATENCY = Metrics.histogram("history_query",
+            "Time to look up or stream transactions (a stream until it is closed)");
+
+    /**
+     * Streams the transactions that match a filter, reading the log as the stream is consumed
+     * The first results are available before the whole log has been read, and memory use
+     * does not grow with the size of the log. Close the stream when done:
+     *   try (Stream<Transaction> statement = TransactionHistory.stream(filter)) { ... }
+     * @param filter Which transactions to include
+     * @return The matching transactions in the order they were logged
+     */
+    public static Stream<Transaction> stream(StatementFilter filter) {
+        long start = System.nanoTime();
+        // Timed from here until the stream is closed, since the log is read as it is consumed
+        return streamLog(filter).onClose(() -> QUERY_LATENCY.recordSince(start));
+    }
+
+    /**
+     * Streams the log like stream(), without counting it as a history query
+     * For classes that rebuild their in-memory totals from the log (TransactionColumns,
+     * AccountAggregates)
+     */
+    static Stream<Transaction> streamLog(StatementFilter filter) {
+        TransactionLogger.flush(); // Make sure queued transactions are stored before reading them
+        return Repositories.transactions().stream(filter);
+    }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            boolean isFirstLine = true;
-            int lineCount = 0;
-            
-            while ((line = reader.readLine()) != null) {
-                lineCount++;
-                if (isFirstLine) {
-                    System.out.println("Skipping header line");
-                    isFirstLine = false;
-                    continue;
-                }
-                
-                if (line.trim().isEmpty()) {
-                    System.out.println("Skipping empty line");
-                    continue;
-                }
-                
-                System.out.println("\nProcessing line " + lineCount + ": " + line);
-                String[] parts = line.split(",");
-                
-                if (parts.length >= 7) {
-                    try {
-                        int id = Integer.parseInt(parts[0].trim());
-                        String timestamp = parts[1].trim();
-                        String fromAccount = parts[2].trim();
-                        String toAccount = parts[3].trim();
-                        double amount = Double.parseDouble(parts[4].trim());
-                        String type = parts[5].trim();
-                        String note = parts[6].trim();
-                        
-                        Transaction transaction = new Transaction(id, timestamp, fromAccount, toAccount, amount, type, note);
-                        transactions.add(transaction);
-                        System.out.println("Successfully loaded transaction: " + id);
-                    } catch (NumberFormatException e) {
-                        System.err.println("Error parsing transaction data: " + e.getMessage());
-                    }
-                } else {
-                    System.err.println("Invalid transaction format: " + line);
-                }
-            }
-            System.out.println("\nFinished loading transactions. Total loaded: " + transactions.size());
-        } catch (IOException e) {
-            System.err.println("Error reading transaction file: " + e.getMessage());
+    /**
+     * Finds one transaction by its ID
+     * Answered from TransactionIndex if the log is already in memory, otherwise only the
+     * log segment whose ID range covers the ID is read
+     * @param transactionId The ID to look up
+     * @return The transaction, or null if there is none with that ID
+     */
+    public static Transaction findTransaction(long transactionId) {
+        if (TransactionIndex.isLoaded()) {
+            long start = System.nanoTime();
+            Transaction transaction = TransactionIndex.find(transactionId);
+            QUERY_LATENCY.recordSince(start);
+            return transaction;
+        }
+        StatementFilter filter = new StatementFilter().transactionIdBetween(transactionId, transactionId);
+        long start = System.nanoTime();
+        try (Stream<Transaction> matches = streamLog(filter)) {
+            return matches.findFirst().orElse(null);
+        } finally {
+            QUERY_LATENCY.recordSince(start);
         }
     }
 
     public static void addTransaction(Transaction transaction) {
-        transactions.add(transaction);
+        TransactionColumns.add(transaction);
     }
 
     public static List<Transaction> getAllTransactions() {
-        loadTransactions(); // Reload transactions before returning
-        return new ArrayList<>(transactions);
+        return TransactionIndex.getAll();
     }
 
     public static List<Transaction> getUserTransactions(int userID) {
-        loadTransactions(); // Reload transactions before filtering
-        System.out.println("\n=== Getting transactions for user ID: " + userID + " ===");
-        System.out.println("Total transactions in system: " + transactions.size());
-        
+        long start = System.nanoTime();
+        LOG.debug(() -> "Getting transactions for user ID: " + userID);
+
         List<BankAccount> userAccounts = BankAccount.getUserAccounts(userID);
-        System.out.println("Found " + userAccounts.size() + " accounts for user");
+        List<String> accountIDs = new ArrayList<>();
         for (BankAccount acc : userAccounts) {
-            System.out.println("User account: " + acc.getAccountID());
+            accountIDs.add(acc.getAccountID());
         }
-        
-        System.out.println("\nChecking each transaction:");
-        List<Transaction> userTransactions = transactions.stream()
-                .filter(t -> {
-                    System.out.println("\nChecking transaction: " + t.getTransactionId());
-                    System.out.println("From: " + t.getFromAccount() + ", To: " + t.getToAccount());
-                    
-                    // Check if the transaction involves any of the user's accounts
-                    boolean matches = userAccounts.stream()
-                            .anyMatch(acc -> {
-                                boolean isMatch = acc.getAccountID().equals(t.getFromAccount()) ||
-                                        acc.getAccountID().equals(t.getToAccount());
-                                if (isMatch) {
-                                    System.out.println("Match found with account: " + acc.getAccountID());
-                                }
-                                return isMatch;
-                            });
-                    
-                    if (matches) {
-                        System.out.println("Transaction " + t.getTransactionId() + " matches user's accounts");
-                    } else {
-                        System.out.println("Transaction " + t.getTransactionId() + " does not match user's accounts");
-                    }
-                    return matches;
-                })
-                .collect(Collectors.toList());
-        
-        System.out.println("\nFound " + userTransactions.size() + " transactions for user");
+        LOG.debug(() -> "Found " + accountIDs.size() + " accounts for user: " + accountIDs);
+
+        // Look up each account in the index instead of checking every transaction
+        List<Transaction> userTransactions = TransactionIndex.getForAccounts(accountIDs);
+
+        LOG.debug(() -> "Found " + userTransactions.size() + " transactions for user " + userID);
+        QUERY_LATENCY.recordSince(start);
         return userTransactions;
     }
 
     public static List<Transaction> getAccountTransactions(String accountID) {
-        loadTransactions(); // Reload transactions before filtering
-        return transactions.stream()
-                .filter(t ->
-                        t.getFromAccount().equals(accountID) ||
-                                t.getToAccount().equals(accountID)
-                )
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        List<Transaction> accountTransactions = TransactionIndex.getForAccounts(Collections.singletonList(accountID));
+        QUERY_LATENCY.recordSince(start);
+        return accountTransactions;
     }
 
     // Reads the transactions.csv file and prints transactions that involve the given accountId
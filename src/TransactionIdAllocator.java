@@ -0,0 +1,105 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TransactionIdAllocator hands out unique transaction IDs, safely from any number of threads.
+ *
+ * IDs come from an AtomicLong, so the normal case is a single atomic increment with no locking.
+ * IDs are reserved in blocks: before the first ID of a new block is handed out, the end of the
+ * block (the "high-water mark") is saved to data/transaction_id.hwm. After a crash the allocator
+ * starts again from the saved mark, so an ID is never reused. At worst the unused rest of a block
+ * is skipped, which leaves a gap in the numbering.
+ *
+ * Only when no mark has been saved yet (first run on an existing data folder) are the stored
+ * transactions scanned once to find the highest ID already in use.
+ */
+public class TransactionIdAllocator {
+    private static final String HWM_PATH = BankConfig.dataFile("transaction_id.hwm");
+
+    // The next ID to hand out
+    private static final AtomicLong nextId = new AtomicLong();
+    // IDs below this value are covered by the saved high-water mark
+    private static volatile long reservedUpTo;
+
+    static {
+        long start = readHighWaterMark();
+        if (start < 0) {
+            start = Repositories.transactions().highestId() + 1;
+        }
+        nextId.set(start);
+        reservedUpTo = start; // Nothing reserved yet, the first call saves a block
+    }
+
+    /**
+     * Gets the next unused transaction ID
+     * @return A transaction ID that has never been handed out before
+     */
+    public static long nextId() {
+        long id = nextId.getAndIncrement();
+        if (id < reservedUpTo) {
+            return id;
+        }
+        return reserve(id);
+    }
+
+    /**
+     * Slow path: saves a new high-water mark that covers the given ID
+     * Threads that run past the end of a block wait here while one of them saves the mark
+     */
+    private static synchronized long reserve(long id) {
+        long blockSize = Math.max(1, BankConfig.getTransactionIdBlockSize());
+        while (id >= reservedUpTo) {
+            long mark = Math.max(reservedUpTo, id + 1) + blockSize - 1;
+            writeHighWaterMark(mark);
+            reservedUpTo = mark;
+        }
+        return id;
+    }
+
+    /**
+     * Reads the saved high-water mark
+     * @return The first ID that may be handed out, or -1 if no mark has been saved
+     */
+    private static long readHighWaterMark() {
+        File file = new File(HWM_PATH);
+        if (!file.exists()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error reading transaction ID high-water mark: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Saves the high-water mark and forces it to disk before any ID below it is used
+     * Written to a temporary file first and then moved into place, so the file is never half written
+     */
+    private static void writeHighWaterMark(long mark) {
+        try {
+            new File(BankConfig.getDataDir()).mkdirs();
+            Path target = Paths.get(HWM_PATH);
+            Path temp = Paths.get(HWM_PATH + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.write(ByteBuffer.wrap(Long.toString(mark).getBytes(StandardCharsets.UTF_8)));
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Keep going: IDs stay unique for this run, only crash recovery is weakened
+            System.err.println("Error saving transaction ID high-water mark: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,195 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * TransactionIndex finds transactions in the log by account and by ID:
+ * - account code -> the row numbers of the transactions that touch that account
+ * - transaction ID -> the row number of that transaction
+ * The row numbers point into TransactionColumns, which already holds the whole log, so the
+ * index keeps no Transaction objects of its own; the matching rows are turned back into
+ * Transactions when they are asked for. Both maps are primitive (PositionList, LongLongMap),
+ * so an indexed transaction costs a few array slots.
+ *
+ * The index catches up with the columns on each lookup: only rows added since the last
+ * lookup are indexed, so it never has to be rebuilt, unless the columns were reloaded
+ * (after a failed write), which the index notices from the snapshot's generation.
+ * Looking up an account's history costs O(k) in the number of matching transactions,
+ * instead of a scan over the whole log.
+ */
+public class TransactionIndex {
+    // Row numbers for each account, by account code in the columns, in ascending order
+    private static final List<PositionList> positionLists = new ArrayList<>();
+    // Transaction ID -> row number
+    private static final LongLongMap byId = new LongLongMap();
+    // The snapshot whose rows are all in the index, null before the first lookup
+    private static TransactionColumns.Snapshot indexed;
+    private static final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * A growable list of int positions, so the index does not box every entry
+     */
+    private static class PositionList {
+        int[] positions = new int[4];
+        int size;
+
+        void add(int position) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+    }
+
+    /**
+     * Brings the index up to date with the columns and takes the read lock
+     * Callers must release the read lock when they are done
+     * @return The snapshot the index now covers
+     */
+    private static TransactionColumns.Snapshot lockCurrent() {
+        TransactionColumns.Snapshot latest = TransactionColumns.snapshot();
+        lock.readLock().lock();
+        if (covers(latest)) {
+            return indexed;
+        }
+        lock.readLock().unlock();
+        lock.writeLock().lock();
+        try {
+            if (indexed == null || latest.getGeneration() > indexed.getGeneration()) {
+                // The columns were reloaded, the old row numbers mean nothing now
+                positionLists.clear();
+                byId.clear();
+                indexed = null;
+            }
+            if (!covers(latest)) {
+                for (int row = indexed == null ? 0 : indexed.size(); row < latest.size(); row++) {
+                    append(latest, row);
+                }
+                indexed = latest;
+            }
+            lock.readLock().lock(); // Taken before the write lock is released, so no reload slips in
+            return indexed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Whether every row of a snapshot is already in the index
+     * A snapshot from before the last reload counts as covered, the newer one is used instead
+     */
+    private static boolean covers(TransactionColumns.Snapshot snapshot) {
+        return indexed != null && (snapshot.getGeneration() < indexed.getGeneration()
+                || (snapshot.getGeneration() == indexed.getGeneration() && snapshot.size() <= indexed.size()));
+    }
+
+    private static void append(TransactionColumns.Snapshot snapshot, int row) {
+        long transactionId = snapshot.getId(row);
+        // Older logs can repeat an ID; keep the first, as a scan of the log would find
+        if (!byId.containsKey(transactionId)) {
+            byId.put(transactionId, row);
+        }
+        int from = snapshot.getFrom(row);
+        int to = snapshot.getTo(row);
+        positionsOf(from).add(row);
+        if (to != from) {
+            positionsOf(to).add(row);
+        }
+    }
+
+    /**
+     * Gets an account's position list, adding empty ones up to its code the first time it is seen
+     */
+    private static PositionList positionsOf(int accountCode) {
+        while (positionLists.size() <= accountCode) {
+            positionLists.add(new PositionList());
+        }
+        return positionLists.get(accountCode);
+    }
+
+    /**
+     * Whether the log has been read into memory yet
+     * @return true once the columns the index works on are loaded
+     */
+    public static boolean isLoaded() {
+        return TransactionColumns.isLoaded();
+    }
+
+    /**
+     * Finds a transaction by its ID
+     * @param transactionId The ID to look up
+     * @return The transaction, or null if there is none with that ID
+     */
+    public static Transaction find(long transactionId) {
+        TransactionColumns.Snapshot snapshot = lockCurrent();
+        try {
+            long position = byId.get(transactionId);
+            return position < 0 ? null : snapshot.getTransaction((int) position);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets every transaction in log order
+     * @return A new list holding all transactions
+     */
+    public static List<Transaction> getAll() {
+        TransactionColumns.Snapshot snapshot = lockCurrent();
+        try {
+            List<Transaction> all = new ArrayList<>(snapshot.size());
+            for (int row = 0; row < snapshot.size(); row++) {
+                all.add(snapshot.getTransaction(row));
+            }
+            return all;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the transactions that move money into or out of any of the given accounts
+     * A transfer between two of the accounts is only returned once
+     * @param accountIDs The accounts to look up
+     * @return The matching transactions in log order
+     */
+    public static List<Transaction> getForAccounts(Collection<String> accountIDs) {
+        TransactionColumns.Snapshot snapshot = lockCurrent();
+        try {
+            int total = 0;
+            List<PositionList> lists = new ArrayList<>();
+            for (String accountID : accountIDs) {
+                int code = snapshot.accountCode(accountID);
+                if (code >= 0 && code < positionLists.size()) {
+                    PositionList list = positionLists.get(code);
+                    lists.add(list);
+                    total += list.size;
+                }
+            }
+
+            // Merge the position lists and put them back in log order
+            int[] merged = new int[total];
+            int count = 0;
+            for (PositionList list : lists) {
+                System.arraycopy(list.positions, 0, merged, count, list.size);
+                count += list.size;
+            }
+            if (lists.size() > 1) {
+                Arrays.sort(merged);
+            }
+
+            List<Transaction> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                if (i > 0 && merged[i] == merged[i - 1]) {
+                    continue; // Same transaction reached through two of the accounts
+                }
+                result.add(snapshot.getTransaction(merged[i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
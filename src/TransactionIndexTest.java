@@ -0,0 +1,110 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Test class for TransactionIndex and TransactionColumns
+ * The index only keeps row numbers, and the columns rebuild each Transaction from packed
+ * fields, so every field has to come back exactly as it was logged, including timestamps
+ * and types that are not in the usual form. Lookups are checked before and after the
+ * columns are thrown away and read again from the log.
+ * Runs in its own temporary data folder, so the real data/ is never touched.
+ * Prints PASS or FAIL for every check and exits with status 1 if any check failed
+ */
+
+public class TransactionIndexTest {
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        // Must be set before any bank class builds its file paths
+        File dataDir = Files.createTempDirectory("index-test").toFile();
+        System.setProperty("bank.data.dir", dataDir.getPath());
+        Log.setLevel(Log.Level.WARN);
+
+        System.out.println("=== Starting Transaction Index Test ===\n");
+
+        List<Transaction> logged = new ArrayList<>();
+        logged.add(new Transaction(1001, "2026-01-05T09:30:00", "SYSTEM", "A", 10000, "DEPOSIT", "paycheck"));
+        logged.add(new Transaction(1002, "2026-01-05T09:31:15.5", "A", "B", 2550, "TRANSFER", ""));
+        logged.add(new Transaction(1003, "2026-01-06T10:00:00.123456789", "B", "-", 500, "WITHDRAW", "atm"));
+        logged.add(new Transaction(1004, "2026-01-06 10:00", "C", "A", 1, "transfer", "old format"));
+        logged.add(new Transaction(1005, "2026-01-07T00:00:00", "B", "C", 99999, "TRANSFER", "rent"));
+        check("transactions are logged", TransactionLogger.logAll(logged) && TransactionLogger.flush());
+
+        // Test 1: Lookups on the columns built while logging
+        System.out.println("Test 1: Lookups while the program runs");
+        checkLookups(logged);
+        System.out.println();
+
+        // Test 2: Lookups after the columns are read again from the log
+        // The index has to notice the new generation and drop its old row numbers
+        System.out.println("Test 2: Lookups after the log is read again");
+        TransactionColumns.invalidate();
+        checkLookups(logged);
+        System.out.println();
+
+        // Test 3: Transactions added after the first lookup are indexed on the next one
+        System.out.println("Test 3: Catching up with new transactions");
+        Transaction late = new Transaction(1006, "2026-01-08T12:00:00", "A", "D", 700, "TRANSFER", "late");
+        check("late transaction is logged", TransactionLogger.log(late) && TransactionLogger.flush());
+        check("late transaction is found by ID", same(late, TransactionIndex.find(1006)));
+        List<Transaction> forD = TransactionIndex.getForAccounts(List.of("D"));
+        check("new account D has the late transaction", forD.size() == 1 && same(late, forD.get(0)));
+        check("account A now has four transactions", TransactionIndex.getForAccounts(List.of("A")).size() == 4);
+        System.out.println();
+
+        System.out.println("=== Transaction Index Test Complete: " + (failures == 0 ? "all checks passed" : failures + " check(s) failed") + " ===");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static void checkLookups(List<Transaction> logged) {
+        List<Transaction> all = TransactionIndex.getAll();
+        boolean allSame = all.size() == logged.size();
+        for (int i = 0; allSame && i < all.size(); i++) {
+            allSame = same(logged.get(i), all.get(i));
+        }
+        check("every field comes back as logged, in log order", allSame);
+
+        check("find gives the transaction with that ID", same(logged.get(3), TransactionIndex.find(1004)));
+        check("find of an unknown ID is null", TransactionIndex.find(999) == null);
+
+        List<Transaction> forA = TransactionIndex.getForAccounts(List.of("A"));
+        check("account A has its three transactions", ids(forA).equals(List.of(1001L, 1002L, 1004L)));
+
+        List<Transaction> forAB = TransactionIndex.getForAccounts(List.of("B", "A"));
+        check("A and B together are merged in log order, the A to B transfer once",
+                ids(forAB).equals(List.of(1001L, 1002L, 1003L, 1004L, 1005L)));
+        check("unknown account has no transactions", TransactionIndex.getForAccounts(List.of("Z")).isEmpty());
+    }
+
+    private static List<Long> ids(List<Transaction> transactions) {
+        List<Long> ids = new ArrayList<>();
+        for (Transaction transaction : transactions) {
+            ids.add(transaction.getTransactionId());
+        }
+        return ids;
+    }
+
+    private static boolean same(Transaction expected, Transaction actual) {
+        return actual != null
+                && expected.getTransactionId() == actual.getTransactionId()
+                && expected.getTimestamp().equals(actual.getTimestamp())
+                && equal(expected.getFromAccount(), actual.getFromAccount())
+                && equal(expected.getToAccount(), actual.getToAccount())
+                && expected.getAmountCents() == actual.getAmountCents()
+                && expected.getType().equals(actual.getType())
+                && equal(expected.getNote(), actual.getNote());
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static void check(String name, boolean passed) {
+        System.out.println((passed ? "PASS  " : "FAIL  ") + name);
+        if (!passed) {
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * TransactionLogReader walks through a transactions.csv file one row at a time
+ * without copying it into Strings first.
+ *
+ * The file is memory-mapped with FileChannel.map and each row is parsed straight out of the
+ * mapped bytes: the ID and amount become primitive values, and account IDs, types and notes go
+ * through a small dictionary so each distinct value is turned into a String only once.
+ * The timestamp is the only per-row String, and it is only built if getTimestamp() is called.
+ *
+ * Usage:
+ *   try (TransactionLogReader reader = TransactionLogReader.open(path)) {
+ *       while (reader.next()) {
+ *           long id = reader.getTransactionId();
+ *           ...
+ *       }
+ *   }
+ * The header row, empty lines and lines that cannot be parsed are skipped.
+ */
+public class TransactionLogReader implements AutoCloseable {
+    // Large files are mapped in pieces of this size
+    private static final long REGION_SIZE = 256L * 1024 * 1024;
+    private static final int FIELD_COUNT = 7;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final ByteDictionary dictionary = new ByteDictionary();
+
+    private MappedByteBuffer buffer;
+    private long regionStart;
+    private int position;
+
+    // Start and end (exclusive) of each field of the current row, inside the buffer
+    private final int[] fieldStart = new int[FIELD_COUNT];
+    private final int[] fieldEnd = new int[FIELD_COUNT];
+    private long transactionId;
+    private long amountCents;
+
+    private TransactionLogReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        mapRegion(0);
+    }
+
+    /**
+     * Opens a transaction log file for reading
+     * @param path The file to read
+     * @return A reader positioned before the first row
+     * @throws IOException If the file cannot be opened or mapped
+     */
+    public static TransactionLogReader open(Path path) throws IOException {
+        return new TransactionLogReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    private void mapRegion(long start) throws IOException {
+        regionStart = start;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION_SIZE, fileSize - start));
+        position = 0;
+    }
+
+    /**
+     * Moves to the next valid row
+     * @return true if a row was read, false at the end of the file
+     * @throws IOException If the next part of the file cannot be mapped
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            int lineEnd = findLineEnd();
+            if (lineEnd < 0) {
+                return false;
+            }
+            int lineStart = position;
+            position = lineEnd + 1;
+            if (parseLine(lineStart, lineEnd)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Finds the end of the line starting at the current position, mapping the next
+     * region of the file if the line runs past the end of this one
+     * @return The index of the line break (or end of data) in the buffer, or -1 at end of file
+     */
+    private int findLineEnd() throws IOException {
+        while (true) {
+            int limit = buffer.limit();
+            if (position >= limit && regionStart + limit >= fileSize) {
+                return -1;
+            }
+            for (int i = position; i < limit; i++) {
+                if (buffer.get(i) == '\n') {
+                    return i;
+                }
+            }
+            if (regionStart + limit >= fileSize) {
+                return limit; // Last line has no line break
+            }
+            mapRegion(regionStart + position); // Line crosses into the next region
+        }
+    }
+
+    /**
+     * Splits a line into its seven fields and parses the ID and amount
+     * The note is everything after the sixth comma
+     * @return true if the line is a valid transaction row
+     */
+    private boolean parseLine(int start, int end) {
+        int field = 0;
+        fieldStart[0] = start;
+        for (int i = start; i < end && field < FIELD_COUNT - 1; i++) {
+            if (buffer.get(i) == ',') {
+                fieldEnd[field] = i;
+                fieldStart[++field] = i + 1;
+            }
+        }
+        if (field != FIELD_COUNT - 1) {
+            return false;
+        }
+        fieldEnd[FIELD_COUNT - 1] = end;
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            trim(i);
+        }
+
+        transactionId = parseLong(fieldStart[0], fieldEnd[0]);
+        if (transactionId < 0) {
+            return false; // Header row or damaged ID
+        }
+        amountCents = parseCents(fieldStart[4], fieldEnd[4]);
+        return amountCents != Long.MIN_VALUE;
+    }
+
+    private void trim(int field) {
+        while (fieldStart[field] < fieldEnd[field] && isSpace(buffer.get(fieldStart[field]))) {
+            fieldStart[field]++;
+        }
+        while (fieldEnd[field] > fieldStart[field] && isSpace(buffer.get(fieldEnd[field] - 1))) {
+            fieldEnd[field]--;
+        }
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    /**
+     * Parses a non-negative whole number
+     * @return The number, or -1 if the field is empty or not a number
+     */
+    private long parseLong(int start, int end) {
+        if (start >= end || end - start > 18) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Parses a decimal amount such as 123.45 into cents
+     * Amounts with more than two decimals are rounded to the nearest cent
+     * @return The amount in cents, or Long.MIN_VALUE if the field is not a number
+     */
+    private long parseCents(int start, int end) {
+        boolean negative = start < end && buffer.get(start) == '-';
+        int i = negative ? start + 1 : start;
+        long whole = 0;
+        int digits = 0;
+        while (i < end && buffer.get(i) >= '0' && buffer.get(i) <= '9') {
+            whole = whole * 10 + (buffer.get(i) - '0');
+            i++;
+            digits++;
+        }
+        long cents = 0;
+        int decimals = 0;
+        if (i < end && buffer.get(i) == '.') {
+            i++;
+            while (i < end && buffer.get(i) >= '0' && buffer.get(i) <= '9') {
+                if (decimals < 2) {
+                    cents = cents * 10 + (buffer.get(i) - '0');
+                } else if (decimals == 2 && buffer.get(i) >= '5') {
+                    cents++; // Round half up on the third decimal
+                }
+                i++;
+                decimals++;
+            }
+        }
+        if (i != end || (digits == 0 && decimals == 0) || digits > 16) {
+            return Long.MIN_VALUE;
+        }
+        if (decimals == 1) {
+            cents *= 10;
+        }
+        long value = whole * 100 + cents;
+        return negative ? -value : value;
+    }
+
+    // Getters for the fields of the current row
+
+    public long getTransactionId() {
+        return transactionId;
+    }
+
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    public double getAmount() {
+        return amountCents / 100.0;
+    }
+
+    public String getTimestamp() {
+        return decode(fieldStart[1], fieldEnd[1]);
+    }
+
+    public String getFromAccount() {
+        return dictionary.lookup(buffer, fieldStart[2], fieldEnd[2]);
+    }
+
+    public String getToAccount() {
+        return dictionary.lookup(buffer, fieldStart[3], fieldEnd[3]);
+    }
+
+    public String getType() {
+        return dictionary.lookup(buffer, fieldStart[5], fieldEnd[5]);
+    }
+
+    public String getNote() {
+        return dictionary.lookup(buffer, fieldStart[6], fieldEnd[6]);
+    }
+
+    /**
+     * Builds a Transaction object from the current row
+     * @return The transaction
+     */
+    public Transaction toTransaction() {
+        return new Transaction(transactionId, getTimestamp(), getFromAccount(), getToAccount(),
+                amountCents, getType(), getNote());
+    }
+
+    private String decode(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Open-addressing table from raw bytes to String
+     * A value that has been seen before is found by comparing bytes in the mapped buffer,
+     * so no String is created for it
+     */
+    private static class ByteDictionary {
+        private byte[][] keys = new byte[256][];
+        private String[] values = new String[256];
+        private int size;
+
+        String lookup(MappedByteBuffer buffer, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + buffer.get(i);
+            }
+            int mask = keys.length - 1;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (keys[slot] != null) {
+                if (matches(keys[slot], buffer, start, end)) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            byte[] key = new byte[end - start];
+            buffer.get(start, key);
+            String value = new String(key, StandardCharsets.UTF_8);
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+            return value;
+        }
+
+        private static boolean matches(byte[] key, MappedByteBuffer buffer, int start, int end) {
+            if (key.length != end - start) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != buffer.get(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void grow() {
+            byte[][] oldKeys = keys;
+            String[] oldValues = values;
+            keys = new byte[oldKeys.length * 2][];
+            values = new String[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == null) {
+                    continue;
+                }
+                int hash = 0;
+                for (byte b : oldKeys[i]) {
+                    hash = 31 * hash + b;
+                }
+                int slot = (hash ^ (hash >>> 16)) & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -6,66 +6,331 @@
  * Description: This utility class handles writing transaction records to the transactions.csv file.
  *              Every transaction (deposit, withdrawal, transfer, interest) will be appended to the file.
  *              It also writes a header row when the file is first created.
+ *              Records are written with group commit: callers hand their transaction to a single
+ *              writer thread, which collects everything that is waiting into one batch and appends
+ *              it with one write (and at most one fsync) through the TransactionRepository
+ *              (transactions.csv by default, see Repositories).
  * Date: April 16, 2025
  */
 
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class TransactionLogger {
-    // Path to the transaction CSV file
-    private static final String FILE_PATH = "data/transactions.csv";
+    /**
+     * How hard the logger works to make a record survive a crash before log() returns
+     * NONE   - log() returns as soon as the record is queued, the OS decides when it reaches the disk
+     * BATCH  - log() waits until its batch is written and forced to the disk (one fsync per batch)
+     * RECORD - like BATCH, but every record is written and forced on its own
+     */
+    public enum Durability { NONE, BATCH, RECORD }
+
+    // Records waiting for the writer thread
+    private static final BlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+    // Callers waiting for their record to be written sleep on this condition
+    // (a ReentrantLock rather than synchronized/wait, so waiting virtual threads
+    // do not hold on to their carrier thread)
+    private static final ReentrantLock commitLock = new ReentrantLock();
+    private static final Condition written = commitLock.newCondition();
+
+    private static Thread writerThread;
+    // Read once when the writer starts, like the batch size and latency budget
+    private static volatile Durability durability = Durability.BATCH;
+    // Set once a batch could not be written even after retrying; no new records are accepted after that
+    private static volatile boolean stopped = false;
+
+    // How many times the writer tries to append a batch before giving up on it
+    private static final int WRITE_ATTEMPTS = 3;
+    private static final Log LOG = Log.get(TransactionLogger.class);
+
+    private static final Metrics.Histogram APPEND_LATENCY = Metrics.histogram("log_append",
+            "Time for the writer thread to append (and force) one batch");
+    private static final Metrics.Histogram COMMIT_WAIT = Metrics.histogram("log_commit_wait",
+            "Time log() callers wait for their record to be written");
+    private static final Metrics.Counter RECORDS = Metrics.counter("log_records", "Transactions appended to the log");
+    private static final Metrics.Counter FAILED = Metrics.counter("log_write_failures", "Batches that could not be written to the log");
+
+    /**
+     * One queued group of transactions and whether it has been written yet
+     * A record with null transactions is a marker used by flush()
+     */
+    private static class PendingRecord {
+        final List<Transaction> transactions;
+        volatile boolean done;
+        // Set together with done if the record could not be written
+        volatile boolean failed;
+
+        PendingRecord(List<Transaction> transactions) {
+            this.transactions = transactions;
+        }
+    }
 
     /**
      * Logs a transaction to the transactions.csv file.
      * If the file is new or empty, writes a header row first.
+     * Depending on BankConfig.getLogDurability() this waits until the record is on disk.
      * @param transaction The Transaction object to be logged.
+     * @return true if the record was accepted (and, unless durability is NONE, written),
+     *         false if it could not be written or the logger has stopped after a write failure
+     */
+    public static boolean log(Transaction transaction) {
+        if (stopped) {
+            LOG.error("Transaction log is not accepting records after a write failure, transaction "
+                    + transaction.getTransactionId() + " was not logged");
+            return false;
+        }
+        // Views first: the columns (and TransactionIndex, which works on them) and the aggregates
+        // load themselves from the file on first use, and this record must not be in the file
+        // yet when that happens. If the write then fails, the writer throws those views away
+        // (see invalidateViews)
+        TransactionColumns.add(transaction);
+        AccountAggregates.record(transaction);
+        PendingRecord record = enqueue(List.of(transaction));
+        if (durability == Durability.NONE) {
+            return true;
+        }
+        long start = System.nanoTime();
+        boolean written = awaitWritten(record);
+        COMMIT_WAIT.recordSince(start);
+        return written;
+    }
+
+    /**
+     * Logs a whole batch of transactions as one append
+     * Used by batch jobs, so thousands of records cost one write instead of thousands
+     * @param transactions The transactions to log, in order
+     * @return true if the batch was accepted (and, unless durability is NONE, written),
+     *         false if it could not be written or the logger has stopped after a write failure
+     */
+    public static boolean logAll(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return true;
+        }
+        if (stopped) {
+            LOG.error("Transaction log is not accepting records after a write failure, "
+                    + transactions.size() + " transactions were not logged");
+            return false;
+        }
+        TransactionColumns.addAll(transactions);
+        AccountAggregates.recordAll(transactions);
+        PendingRecord record = enqueue(new ArrayList<>(transactions));
+        if (durability == Durability.NONE) {
+            return true;
+        }
+        return awaitWritten(record);
+    }
+
+    /**
+     * Waits until every transaction logged so far has been written to the file
+     * Used before reading the file back, and when the program shuts down
+     * @return false if any record could not be written since the logger started
+     */
+    public static boolean flush() {
+        if (writerThread == null) {
+            return true;
+        }
+        awaitWritten(enqueue(null));
+        return !stopped;
+    }
+
+    /**
+     * Whether the logger has stopped accepting records because a batch could not be written
+     * @return true once a write has failed for good
      */
-    public static void log(Transaction transaction) {
+    public static boolean isStopped() {
+        return stopped;
+    }
+
+    private static PendingRecord enqueue(List<Transaction> transactions) {
+        startWriter();
+        PendingRecord record = new PendingRecord(transactions);
+        queue.add(record);
+        return record;
+    }
+
+    /**
+     * Waits for the writer thread to finish with a record
+     * @return true if it was written, false if the write failed (or the wait was interrupted)
+     */
+    private static boolean awaitWritten(PendingRecord record) {
+        commitLock.lock();
         try {
-            // Create data directory if it doesn't exist
-            File dataDir = new File("data");
-            if (!dataDir.exists()) {
-                dataDir.mkdirs();
-                System.out.println("Created data directory at: " + dataDir.getAbsolutePath());
+            while (!record.done) {
+                written.await();
+            }
+            return !record.failed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Starts the writer thread the first time something is logged
+     */
+    private static synchronized void startWriter() {
+        if (writerThread != null) {
+            return;
+        }
+        durability = BankConfig.getLogDurability();
+        writerThread = new Thread(TransactionLogger::writeLoop, "transaction-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(TransactionLogger::flush, "transaction-log-shutdown"));
+    }
+
+    /**
+     * Body of the writer thread: take the first waiting record, gather more until the batch
+     * is full or the latency budget is used up, then write them all at once
+     */
+    private static void writeLoop() {
+        int maxBatch = Math.max(1, BankConfig.getLogMaxBatch());
+        long maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(BankConfig.getLogMaxLatencyMillis());
+        Durability mode = durability;
+        List<PendingRecord> batch = new ArrayList<>(maxBatch);
+
+        while (true) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxLatencyNanos;
+                queue.drainTo(batch, maxBatch - batch.size());
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    PendingRecord next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatch - batch.size());
+                }
+
+                try {
+                    writeBatch(batch, mode);
+                } catch (RuntimeException e) {
+                    // The thread must survive, or every caller waiting on this batch waits forever
+                    LOG.error("Unexpected error writing to the transaction log: " + e.getMessage(), e);
+                    failAll(batch);
+                }
+
+                commitLock.lock();
+                try {
+                    for (PendingRecord record : batch) {
+                        record.done = true;
+                    }
+                    written.signalAll();
+                } finally {
+                    commitLock.unlock();
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                return;
             }
+        }
+    }
 
-            File file = new File(FILE_PATH);
-            boolean isNewFile = !file.exists() || file.length() == 0;
-            System.out.println("Transaction file exists: " + file.exists());
-            System.out.println("Transaction file path: " + file.getAbsolutePath());
-
-            // Use PrintWriter for better formatting
-            try (PrintWriter writer = new PrintWriter(new FileWriter(FILE_PATH, true))) {
-                // If new or empty, add column headers
-                if (isNewFile) {
-                    writer.println("TransactionID,Timestamp,FromAccount,ToAccount,Amount,Type,Note");
-                    System.out.println("Created new transaction file with header");
+    /**
+     * Appends a batch of records with a single repository write
+     * In RECORD mode each record is written and forced separately instead
+     * Records that could not be written are marked as failed
+     */
+    private static void writeBatch(List<PendingRecord> batch, Durability durability) throws InterruptedException {
+        if (durability == Durability.RECORD) {
+            boolean anyFailed = false;
+            for (PendingRecord record : batch) {
+                if (record.transactions != null && !append(record.transactions, true)) {
+                    record.failed = true;
+                    anyFailed = true;
                 }
+            }
+            if (anyFailed) {
+                invalidateViews();
+            }
+            return;
+        }
 
-                // Write the transaction in CSV format
-                String transactionLine = String.format("%d,%s,%s,%s,%.2f,%s,%s",
-                    transaction.getTransactionId(),
-                    transaction.getTimestamp(),
-                    transaction.getFromAccount(),
-                    transaction.getToAccount(),
-                    transaction.getAmount(),
-                    transaction.getType(),
-                    transaction.getNote()
-                );
-                writer.println(transactionLine);
-                System.out.println("Transaction logged successfully: " + transactionLine);
-                
-                // Verify the file was written
-                if (file.exists()) {
-                    System.out.println("Transaction file size after write: " + file.length() + " bytes");
+        List<Transaction> transactions = new ArrayList<>();
+        for (PendingRecord record : batch) {
+            if (record.transactions != null) {
+                transactions.addAll(record.transactions);
+            }
+        }
+        if (!transactions.isEmpty() && !append(transactions, durability == Durability.BATCH)) {
+            for (PendingRecord record : batch) {
+                if (record.transactions != null) {
+                    record.failed = true;
                 }
             }
-        } catch (IOException e) {
-            System.err.println("Error writing transaction: " + e.getMessage());
-            e.printStackTrace();
+            invalidateViews();
+        }
+    }
+
+    /**
+     * Marks every record of a batch as failed and stops the logger, for errors the
+     * batch could not recover from
+     */
+    private static void failAll(List<PendingRecord> batch) {
+        for (PendingRecord record : batch) {
+            if (record.transactions != null) {
+                record.failed = true;
+            }
+        }
+        FAILED.increment();
+        stopped = true;
+        invalidateViews();
+    }
+
+    /**
+     * Makes the in-memory views of the log drop the transactions that could not be written
+     * They were added before the write, so each view is thrown away and read again from
+     * the file (which only holds what was written) the next time it is used.
+     * Called before the waiting callers are told their records failed
+     */
+    private static void invalidateViews() {
+        TransactionColumns.invalidate(); // TransactionIndex starts over when it sees the reload
+        AccountAggregates.invalidate();
+    }
+
+    /**
+     * Appends transactions, retrying a failed write a few times with a short pause
+     * If every attempt fails the logger stops accepting new records, since nothing logged
+     * after this point could be trusted to reach the file
+     * @return true if the transactions were written
+     */
+    private static boolean append(List<Transaction> transactions, boolean sync) throws InterruptedException {
+        TransactionRepository repository = Repositories.transactions();
+        for (int attempt = 1; attempt <= WRITE_ATTEMPTS; attempt++) {
+            long start = System.nanoTime();
+            boolean appended;
+            try {
+                appended = repository.append(transactions, sync);
+            } catch (RuntimeException e) {
+                // e.g. an unchecked I/O or database error; counts as a failed attempt
+                LOG.error("Error appending to the transaction log: " + e.getMessage(), e);
+                appended = false;
+            }
+            APPEND_LATENCY.recordSince(start);
+            if (appended) {
+                RECORDS.add(transactions.size());
+                return true;
+            }
+            if (attempt < WRITE_ATTEMPTS) {
+                Thread.sleep(10L << attempt);
+            }
         }
+        FAILED.increment();
+        stopped = true;
+        LOG.error("Could not write " + transactions.size() + " transactions to the log after "
+                + WRITE_ATTEMPTS + " attempts; no new transactions will be accepted");
+        return false;
     }
 }
@@ -0,0 +1,44 @@
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * TransactionRepository is where TransactionLogger appends transactions and where
+ * TransactionHistory reads them back.
+ *
+ * Implementations (picked with -Dbank.store.backend, see Repositories):
+ * - CsvTransactionRepository   CSV segment files in data/transactions (default, also used by the binary backend)
+ * - JdbcTransactionRepository  a table in an embedded SQL database
+ */
+public interface TransactionRepository {
+
+    /**
+     * Appends a batch of transactions in order
+     * Only called from TransactionLogger's writer thread
+     * @param transactions The transactions to append
+     * @param sync true to force them to the disk before returning
+     * @return true if successful, false otherwise
+     */
+    boolean append(List<Transaction> transactions, boolean sync);
+
+    /**
+     * Reads every stored transaction
+     * @return The transactions in the order they were appended
+     */
+    List<Transaction> loadAll();
+
+    /**
+     * Streams the stored transactions that match a filter, reading them lazily where possible
+     * The stream must be closed (try-with-resources) to release the file or connection it reads from
+     * A read error part way through is thrown from the stream (UncheckedIOException for files),
+     * never reported as the end of the stream
+     * @param filter Which transactions to include
+     * @return The matching transactions in the order they were appended
+     */
+    Stream<Transaction> stream(StatementFilter filter);
+
+    /**
+     * Finds the highest transaction ID in use
+     * @return The highest ID, or 0 if there are no transactions
+     */
+    long highestId();
+}
@@ -0,0 +1,158 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TransferService runs transfers in the background, each on its own virtual thread.
+ *
+ * A transfer spends most of its time waiting (for account locks and for its transaction
+ * to reach the disk), so thousands can be in flight at once without a platform thread each.
+ * Every transfer goes through BankTransfer.transfer, so the usual validation rules apply,
+ * and the result comes back as a CompletableFuture that completes with true or false.
+ *
+ * At most BankConfig.getTransferMaxInFlight() transfers run at the same time. When that many
+ * are in flight, submit() waits for one to finish (back-pressure), and trySubmit() gives up
+ * after a timeout instead.
+ *
+ * Usage:
+ *   try (TransferService service = new TransferService()) {
+ *       CompletableFuture<Boolean> result = service.submit("a-C-1001", "b-S-1002", 25.00);
+ *       ...
+ *   }
+ */
+public class TransferService implements AutoCloseable {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // One permit per transfer allowed in flight
+    private final Semaphore permits;
+
+    /**
+     * Creates a transfer service with the configured in-flight limit
+     */
+    public TransferService() {
+        this(BankConfig.getTransferMaxInFlight());
+    }
+
+    /**
+     * Creates a transfer service
+     * @param maxInFlight The most transfers that may run at the same time
+     */
+    public TransferService(int maxInFlight) {
+        this.permits = new Semaphore(Math.max(1, maxInFlight));
+    }
+
+    /**
+     * Queues a transfer between two accounts, looked up by ID
+     * Waits if the service is already running its maximum number of transfers
+     * @param fromAccountID The source account ID
+     * @param toAccountID The destination account ID
+     * @param amount The amount to transfer
+     * @return A future that completes with true if the transfer succeeded, false otherwise
+     */
+    public CompletableFuture<Boolean> submit(String fromAccountID, String toAccountID, double amount) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        return start(fromAccountID, toAccountID, amount);
+    }
+
+    /**
+     * Queues a transfer, but only waits up to the given time for room in the service
+     * @param fromAccountID The source account ID
+     * @param toAccountID The destination account ID
+     * @param amount The amount to transfer
+     * @param timeout How long to wait for room
+     * @param unit The unit of the timeout
+     * @return A future with the transfer result, or a failed future holding a
+     *         RejectedExecutionException if the service stayed full
+     */
+    public CompletableFuture<Boolean> trySubmit(String fromAccountID, String toAccountID, double amount,
+                                                long timeout, TimeUnit unit) {
+        try {
+            if (!permits.tryAcquire(timeout, unit)) {
+                return CompletableFuture.failedFuture(new RejectedExecutionException("Too many transfers in flight"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        return start(fromAccountID, toAccountID, amount);
+    }
+
+    /**
+     * Runs the transfer on a new virtual thread, the caller already holds a permit
+     */
+    private CompletableFuture<Boolean> start(String fromAccountID, String toAccountID, double amount) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                BankAccount fromAccount = BankAccount.findAccount(fromAccountID);
+                BankAccount toAccount = BankAccount.findAccount(toAccountID);
+                return BankTransfer.transfer(fromAccount, toAccount, amount);
+            }, executor).whenComplete((result, error) -> permits.release());
+        } catch (RejectedExecutionException e) {
+            permits.release(); // The service was closed
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Gets the number of transfers that could still start right away
+     * @return The free room in the service
+     */
+    public int availableSlots() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * Stops accepting transfers and waits for the ones in flight to finish
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    /**
+     * Load generator: runs random transfers between existing accounts and reports throughput
+     * Usage: java TransferService [transfers]   (default 10000)
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        List<BankAccount> accounts = BankAccount.getAllAccounts();
+        if (accounts.size() < 2) {
+            System.err.println("Need at least two accounts to generate transfers");
+            return;
+        }
+
+        // BankTransfer logs every transfer at INFO; keep the console readable
+        Log.setLevel(Log.Level.WARN);
+
+        Random random = new Random();
+        List<CompletableFuture<Boolean>> results = new ArrayList<>(count);
+        long start = System.nanoTime();
+        try (TransferService service = new TransferService()) {
+            for (int i = 0; i < count; i++) {
+                BankAccount from = accounts.get(random.nextInt(accounts.size()));
+                BankAccount to = accounts.get(random.nextInt(accounts.size()));
+                results.add(service.submit(from.getAccountID(), to.getAccountID(), 0.01));
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        int succeeded = 0;
+        for (CompletableFuture<Boolean> result : results) {
+            if (result.join()) {
+                succeeded++;
+            }
+        }
+        System.out.printf("%d transfers (%d succeeded) in %.1f ms, %.0f transfers/s%n",
+                count, succeeded, elapsed / 1e6, count / (elapsed / 1e9));
+    }
+}
@@ -2,7 +2,6 @@ import java.util.List;
 import java.util.Scanner;
 
 public class TransferUI {
-    private static final double DAILY_TRANSFER_LIMIT = 10000.00;
     private static final double TRANSFER_FEE = 1.50;
     private static final double TRANSFER_FEE_THRESHOLD = 1000.00; // Fee applies to transfers above this amount
 
@@ -52,8 +51,9 @@ public class TransferUI {
         System.out.println("\nYour Accounts:");
         for (int i = 0; i < userAccounts.size(); i++) {
             BankAccount account = userAccounts.get(i);
-            System.out.printf("%d. %s - $%.2f%n",
-                    i + 1, account.getAccountID(), account.getBalance());
+            System.out.printf("%d. %s - $%.2f (sent today: $%s)%n",
+                    i + 1, account.getAccountID(), account.getBalance(),
+                    Money.format(AccountAggregates.getTransferredOutTodayCents(account.getAccountID())));
         }
 
         // Select source account
@@ -72,11 +72,7 @@ public class TransferUI {
         String recipientAccountId = scanner.nextLine();
 
         // Find recipient account
-        List<BankAccount> allAccounts = BankAccountCSV.readAllAccountsAdmin();
-        BankAccount recipientAccount = allAccounts.stream()
-                .filter(acc -> acc.getAccountID().equals(recipientAccountId))
-                .findFirst()
-                .orElse(null);
+        BankAccount recipientAccount = BankAccountCSV.findAccount(recipientAccountId.trim());
 
         if (recipientAccount == null) {
             System.out.println("Recipient account not found.");
@@ -88,12 +84,6 @@ public class TransferUI {
         double amount = scanner.nextDouble();
         scanner.nextLine(); // Consume newline
 
-        // Check daily transfer limit
-        if (amount > DAILY_TRANSFER_LIMIT) {
-            System.out.printf("Transfer amount exceeds daily limit of $%.2f%n", DAILY_TRANSFER_LIMIT);
-            return;
-        }
-
         // Calculate total amount including fee if applicable
         double totalAmount = amount;
         if (amount > TRANSFER_FEE_THRESHOLD) {
@@ -116,11 +106,10 @@ public class TransferUI {
         if (confirmation.equalsIgnoreCase("yes")) {
             // Perform transfer
             boolean success = BankTransfer.transfer(sourceAccount, recipientAccount, totalAmount);
+            Log.flush(); // Show the transfer messages before the rest of this screen
             if (success) {
+                // Both accounts were already saved by BankAccount.transfer
                 System.out.println("Transfer completed successfully!");
-                // Update accounts in CSV
-                BankAccountCSV.updateAccount(sourceAccount);
-                BankAccountCSV.updateAccount(recipientAccount);
             }
         } else {
             System.out.println("Transfer cancelled.");
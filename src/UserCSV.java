@@ -14,13 +14,13 @@ import java.util.*;
  */
 
 public class UserCSV {
-    private static final String CSV_FILE_PATH = "data/users.csv";  // Path to the CSV file storing user data
+    private static final String CSV_FILE_PATH = BankConfig.dataFile("users.csv");  // Path to the CSV file storing user data
 
     public static List<User> loadUsers() {
         List<User> users = new ArrayList<>();  // List to store loaded users
 
         try {
-            File dataDir = new File("data");
+            File dataDir = new File(BankConfig.getDataDir());
             if (!dataDir.exists() && !dataDir.mkdirs()) {
                 throw new IOException("Failed to create data directory");  // Ensure data directory exists
             }
@@ -86,6 +86,43 @@ public class UserCSV {
         return users;  // Return the list of loaded users
     }
 
+    /**
+     * Adds one user to the end of the CSV file without rewriting the rest of it
+     * Writes the header first if the file does not exist yet
+     * @param user The user to append
+     * @return true if successful, false otherwise
+     */
+    public static boolean appendUser(User user) {
+        if (user == null || user.getUsername() == null || user.getPassword() == null || user.getRole() == null) {
+            System.err.println("Error: Cannot append user with null fields");
+            return false;
+        }
+
+        try {
+            File dataDir = new File(BankConfig.getDataDir());
+            if (!dataDir.exists() && !dataDir.mkdirs()) {
+                throw new IOException("Failed to create data directory");  // Ensure the directory exists
+            }
+
+            File file = new File(CSV_FILE_PATH);
+            boolean writeHeader = !file.exists() || file.length() == 0;
+            try (FileWriter writer = new FileWriter(file, true)) {
+                if (writeHeader) {
+                    writer.write("username,password,role,userID\n");  // Write the header for a new file
+                }
+                writer.write(String.format("%s,%s,%s,%d%n",
+                        user.getUsername().replace(",", ";"),  // Replace commas with semicolons
+                        user.getPassword().replace(",", ";"),
+                        user.getRole().replace(",", ";"),
+                        user.getUserID()));
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error appending user to CSV: " + e.getMessage());
+            return false;
+        }
+    }
+
     public static boolean saveUsers(List<User> users) {
         if (users == null) {
             System.err.println("Error: Cannot save null users list");
@@ -93,7 +130,7 @@ public class UserCSV {
         }
 
         try {
-            File dataDir = new File("data");
+            File dataDir = new File(BankConfig.getDataDir());
             if (!dataDir.exists() && !dataDir.mkdirs()) {
                 throw new IOException("Failed to create data directory");  // Ensure the directory exists
             }
@@ -0,0 +1,200 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * UserDirectory keeps every User in memory with three indexes:
+ * - by exact username, used for logins
+ * - by username ignoring case, used for finding transfer recipients and for refusing new
+ *   names that only differ in case from an existing one
+ * - by userID
+ * so a lookup takes the same time no matter how many users there are.
+ * Older users.csv files can hold names that only differ in case; each of those users can
+ * still log in with their own name.
+ *
+ * The users are read from the UserRepository once, the first time the directory is used
+ * (users.csv by default, see Repositories). After that:
+ * - a new user is appended to the end of the file (one line)
+ * - removing or renaming a user rewrites the file, since the old row has to go
+ */
+public class UserDirectory {
+    // All users keyed by userID, in the order they appear in users.csv
+    private static final Map<Integer, User> usersById = new LinkedHashMap<>();
+    // All users keyed by username, exactly as written
+    private static final Map<String, User> usersByExactName = new ConcurrentHashMap<>();
+    // All users keyed by lowercase username
+    private static final Map<String, User> usersByName = new ConcurrentHashMap<>();
+    // Copy of usersById for lock-free reads (the LinkedHashMap is only touched while holding the lock)
+    private static final Map<Integer, User> readById = new ConcurrentHashMap<>();
+
+    private static volatile boolean loaded = false;
+
+    /**
+     * Loads the users the first time the directory is used
+     */
+    private static void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (UserDirectory.class) {
+            if (loaded) {
+                return;
+            }
+            for (User user : Repositories.users().loadAll()) {
+                index(user);
+            }
+            loaded = true;
+        }
+    }
+
+    /**
+     * Finds a user by username, ignoring upper and lower case
+     * @param username The username to look up
+     * @return The user, or null if no user has that name
+     */
+    public static User findByUsername(String username) {
+        if (username == null) {
+            return null;
+        }
+        ensureLoaded();
+        return usersByName.get(key(username));
+    }
+
+    /**
+     * Finds a user by their ID
+     * @param userID The ID to look up
+     * @return The user, or null if no user has that ID
+     */
+    public static User findByID(int userID) {
+        ensureLoaded();
+        return readById.get(userID);
+    }
+
+    /**
+     * Checks a username and password
+     * @param username The username entered at login
+     * @param password The password entered at login
+     * @return The matching user, or null if the username or password is wrong
+     */
+    public static User authenticate(String username, String password) {
+        if (username == null) {
+            return null;
+        }
+        ensureLoaded();
+        User user = usersByExactName.get(username);
+        if (user != null && user.getPassword().equals(password)) {
+            return user;
+        }
+        return null;
+    }
+
+    /**
+     * Gets every user in the directory
+     * @return A copy of the user list, in file order
+     */
+    public static synchronized List<User> getAllUsers() {
+        ensureLoaded();
+        return new ArrayList<>(usersById.values());
+    }
+
+    /**
+     * Adds a new user and appends it to users.csv
+     * @param user The user to add
+     * The user is only added to the directory once it has been written, so a failed write
+     * leaves no user who can log in now but is gone after a restart
+     * @return true if successful, false if the username (in any case) or ID is taken or the file could not be written
+     */
+    public static synchronized boolean addUser(User user) {
+        ensureLoaded();
+        if (usersByName.containsKey(key(user.getUsername())) || usersById.containsKey(user.getUserID())) {
+            System.err.println("Error: A user named " + user.getUsername() + " or with ID " + user.getUserID() + " already exists");
+            return false;
+        }
+        if (!Repositories.users().add(user)) {
+            return false;
+        }
+        index(user);
+        return true;
+    }
+
+    /**
+     * Removes a user and rewrites users.csv without them
+     * @param userID The ID of the user to remove
+     * @return The removed user, or null if no user has that ID
+     */
+    public static synchronized User removeUser(int userID) {
+        ensureLoaded();
+        User removed = usersById.remove(userID);
+        if (removed == null) {
+            return null;
+        }
+        readById.remove(userID);
+        unindexName(removed);
+        save();
+        return removed;
+    }
+
+    /**
+     * Changes a user's username, keeps the name index up to date and rewrites users.csv
+     * @param user The user to rename
+     * @param newUsername The new username
+     * @return true if successful, false if another user already has that name
+     */
+    public static synchronized boolean renameUser(User user, String newUsername) {
+        ensureLoaded();
+        User existing = usersByName.get(key(newUsername));
+        if (existing != null && existing != user) {
+            System.err.println("Error: Username already exists: " + newUsername);
+            return false;
+        }
+        boolean indexed = usersById.containsKey(user.getUserID());
+        if (indexed) {
+            unindexName(user);
+        }
+        user.forceSetUsername(newUsername);
+        if (indexed) {
+            usersByExactName.put(newUsername, user);
+            usersByName.put(key(newUsername), user);
+            save();
+        }
+        return true;
+    }
+
+    private static void index(User user) {
+        usersById.put(user.getUserID(), user);
+        readById.put(user.getUserID(), user);
+        usersByExactName.putIfAbsent(user.getUsername(), user);
+        // If two rows only differ in case, the first one is found by recipient lookups
+        usersByName.putIfAbsent(key(user.getUsername()), user);
+    }
+
+    /**
+     * Takes a user's name out of both name indexes
+     * If an older row only differs in case, it takes over the case-insensitive entry
+     */
+    private static void unindexName(User user) {
+        usersByExactName.remove(user.getUsername(), user);
+        String key = key(user.getUsername());
+        if (usersByName.remove(key, user)) {
+            for (User other : usersById.values()) {
+                if (other != user && key(other.getUsername()).equals(key)) {
+                    usersByName.putIfAbsent(key, other);
+                    break;
+                }
+            }
+        }
+    }
+
+    private static void save() {
+        if (!Repositories.users().saveAll(new ArrayList<>(usersById.values()))) {
+            System.err.println("Warning: Failed to save users");
+        }
+    }
+
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,32 @@
+import java.util.List;
+
+/**
+ * UserRepository is where UserDirectory keeps its users between runs.
+ *
+ * Implementations (picked with -Dbank.store.backend, see Repositories):
+ * - CsvUserRepository   users.csv (default, also used by the binary backend)
+ * - JdbcUserRepository  a table in an embedded SQL database
+ */
+public interface UserRepository {
+
+    /**
+     * Reads every stored user
+     * @return List of all users, in the order they were added
+     */
+    List<User> loadAll();
+
+    /**
+     * Stores one new user
+     * @param user The user to add
+     * @return true if successful, false otherwise
+     */
+    boolean add(User user);
+
+    /**
+     * Replaces the stored users with the given list
+     * Used after a user is removed or renamed
+     * @param users Every user that should be stored
+     * @return true if successful, false otherwise
+     */
+    boolean saveAll(List<User> users);
+}